@@ -156,9 +156,9 @@ public class CCAFilter
     Matrix lambdaIY = MatrixFactory.eye(numTargets).mul(m_lambdaY);
 
     // Get covariance matrices
-    Matrix Cxx = X.t().mul(X).add(lambdaIX);
-    Matrix Cyy = y.t().mul(y).add(lambdaIY);
-    Matrix Cxy = X.t().mul(y);
+    Matrix Cxx = X.gram().add(lambdaIX);
+    Matrix Cyy = y.gram().add(lambdaIY);
+    Matrix Cxy = X.tmul(y);
 
     // Apply A^(-1/2)
     Matrix CxxInvSqrt = powMinusHalf(Cxx);
@@ -190,8 +190,7 @@ public class CCAFilter
     Matrix eigValsDesc = A.getEigenvaluesSortedDescending();
     Matrix eigVecsDesc = A.getEigenvectors(true);
     Matrix diag = MatrixFactory.diag(eigValsDesc);
-    Matrix DsqrtInv = diag.sqrt().inverse();
-    Matrix ApowHalf = eigVecsDesc.mul(DsqrtInv).mul(eigVecsDesc.t());
+    Matrix ApowHalf = eigVecsDesc.mul(diag.sqrt().solveDiagonal(eigVecsDesc.t()));
     return ApowHalf;
   }
 
@@ -54,6 +54,18 @@ public class Center
       getLogger().info("Means: " + Utils.arrayToString(m_Means));
   }
 
+  /**
+   * Configures the algorithm from precomputed column means, e.g., when
+   * they were already determined in a single pass over the data.
+   *
+   * @param means	the column means
+   */
+  public void configure(double[] means) {
+    reset();
+    m_Means = means.clone();
+    setConfigured();
+  }
+
   @Override
   protected Matrix doTransform(Matrix X) {
     Matrix	result;
@@ -93,4 +105,12 @@ public class Center
     return result;
   }
 
+  /**
+   * Returns the column means used for centering.
+   *
+   * @return		the means, null if not yet configured
+   */
+  public double[] getMeans() {
+    return m_Means;
+  }
 }
@@ -157,14 +157,11 @@ public class OSC
    * @return          The orthogonalised matrix.
    */
   public static Matrix orthogonalise(Matrix t, Matrix against) {
-    // Cache the transpose of the "against" matrix
-    Matrix againstTranspose = against.transpose();
+    // Project t onto the column space of "against", solving the normal
+    // equations instead of forming the (rows x rows) orthogonalisation matrix
+    Matrix coefficients = against.gram().solveSymmetricPositiveDefinite(against.tmul(t));
 
-    // Calculate the orthogonalisation matrix
-    Matrix orthogonalisationMatrix = againstTranspose.mul(against).inverse();
-    orthogonalisationMatrix = against.mul(orthogonalisationMatrix).mul(againstTranspose);
-
-    return t.sub(orthogonalisationMatrix.mul(t));
+    return t.sub(against.mul(coefficients));
   }
 
   @Override
@@ -27,10 +27,10 @@ import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.core.algorithm.UnsupervisedMatrixAlgorithm;
 import com.github.waikatodatamining.matrix.core.Utils;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixHelper;
+import gnu.trove.list.TDoubleList;
 import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.set.TDoubleSet;
-import gnu.trove.set.hash.TDoubleHashSet;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -167,21 +167,15 @@ public class PCA
   }
 
   /**
-   * Removes the columns according to {@link #m_KeepCols}.
+   * Removes the columns according to {@link #m_KeepCols}. Returns a view
+   * on the kept columns rather than a copy.
    *
    * @param data	the data to trim
    * @return		the trimmed data
    */
   protected Matrix removeColumns(Matrix data) {
-    TIntList 	rows;
-    int		j;
-
-    if (m_KeepCols.size() != data.numColumns()) {
-      rows = new TIntArrayList();
-      for (j = 0; j < data.numRows(); j++)
-        rows.add(j);
-      data = data.getSubMatrix(rows.toArray(), m_KeepCols.toArray());
-    }
+    if (m_KeepCols.size() != data.numColumns())
+      data = data.getColumns(m_KeepCols.toArray());
 
     return data;
   }
@@ -197,31 +191,63 @@ public class PCA
     double[][] 			v;
     Matrix 			corr;
     Matrix 			V;
-    TDoubleSet 			distinct;
-
-    m_Train = instances.copy();
-
-    // delete any attributes with only one distinct value or are all missing
+    int				numRows;
+    double			mean;
+    double			variance;
+    double			min;
+    double			max;
+    double			value;
+    TDoubleList			means;
+    TDoubleList			stdDevs;
+
+    // single pass over each column to determine the mean (for the
+    // transformation) and min/max (to detect columns with only one distinct
+    // value or that are all missing); the stdev requires a second pass, but
+    // only over the columns that are kept
+    numRows    = instances.numRows();
+    means      = new TDoubleArrayList();
+    stdDevs    = new TDoubleArrayList();
     m_KeepCols = new TIntArrayList();
-    for (j = 0; j < m_Train.numColumns(); j++) {
-      distinct = new TDoubleHashSet();
-      for (i = 0; i < m_Train.numRows(); i++) {
-        distinct.add(m_Train.get(i, j));
-        if (distinct.size() > 1)
-          break;
+    for (j = 0; j < instances.numColumns(); j++) {
+      if (m_Stopped)
+	throw new StoppedException();
+
+      mean = 0.0;
+      min  = Double.POSITIVE_INFINITY;
+      max  = Double.NEGATIVE_INFINITY;
+      for (i = 0; i < numRows; i++) {
+	value = instances.get(i, j);
+	mean += value / numRows;
+	if (value < min)
+	  min = value;
+	if (value > max)
+	  max = value;
+      }
+      if (!(min < max))
+        continue;
+
+      m_KeepCols.add(j);
+      means.add(mean);
+      if (!m_Center) {
+	variance = 0.0;
+	for (i = 0; i < numRows; i++)
+	  variance += Math.pow(instances.get(i, j) - mean, 2);
+	stdDevs.add(Math.sqrt(variance / (numRows - 1)));
       }
-      if (distinct.size() > 1)
-        m_KeepCols.add(j);
     }
 
-    m_Train = removeColumns(m_Train);
+    m_Train = removeColumns(instances);
 
     // transform data
-    if (m_Center)
+    if (m_Center) {
       m_Transformation = new Center();
-    else
+      ((Center) m_Transformation).configure(means.toArray());
+    }
+    else {
       m_Transformation = new Standardize();
-    m_Train = m_Transformation.configureAndTransform(m_Train);
+      ((Standardize) m_Transformation).configure(means.toArray(), stdDevs.toArray());
+    }
+    m_Train = m_Transformation.transform(m_Train);
 
     m_NumRows = m_Train.numRows();
     m_NumCols = m_Train.numColumns();
@@ -66,6 +66,24 @@ public class Standardize
     }
   }
 
+  /**
+   * Configures the algorithm from precomputed column statistics, e.g., when
+   * they were already determined in a single pass over the data.
+   *
+   * @param means	the column means
+   * @param stdDevs	the column standard deviations
+   */
+  public void configure(double[] means, double[] stdDevs) {
+    if (means.length != stdDevs.length)
+      throw new IllegalArgumentException(
+        "Number of means and standard deviations differ: " + means.length + " != " + stdDevs.length);
+
+    reset();
+    m_Means   = means.clone();
+    m_StdDevs = stdDevs.clone();
+    setConfigured();
+  }
+
   @Override
   protected Matrix doTransform(Matrix data) {
     Matrix	result;
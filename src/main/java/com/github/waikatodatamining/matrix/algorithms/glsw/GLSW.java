@@ -94,7 +94,7 @@ public class GLSW
     Matrix D = getWeightMatrix(C);
 
     // Projection Matrix
-    m_G = V.mul(D.inverse()).mul(V.t());
+    m_G = V.mul(D.solveDiagonal(V.t()));
   }
 
   protected Matrix getEigenvectorMatrix(Matrix C) {
@@ -26,6 +26,8 @@ import static com.github.waikatodatamining.matrix.core.matrix.MatrixFactory.*;
  * - fun: functional form of G used to approximate the NegEntropy
  * - maxIter: Maximum number of iterations
  * - tol: Tolerance on iteration updates
+ * - warmStart: Flag to initialize the weights from the components of the
+ * previous transformation instead of random weights
  *
  * @author Steven Lang
  */
@@ -67,6 +69,12 @@ public class FastICA
   /** Mixing matrix */
   protected Matrix m_Mixing;
 
+  /** Flag for initializing from the components of the previous run */
+  protected boolean m_warmStart = false;
+
+  /** Total number of iterations of the last run */
+  protected int m_numIterations;
+
   /**
    * Get the number of components.
    *
@@ -191,6 +199,36 @@ public class FastICA
     m_algorithm = algorithm;
   }
 
+  /**
+   * Get whether warm start flag is set.
+   *
+   * @return True if warm start is set
+   */
+  public boolean isWarmStart() {
+    return m_warmStart;
+  }
+
+  /**
+   * Set whether to initialize the weights from the components of the
+   * previous transformation (if the number of components and features
+   * match), rather than from random weights. This reduces the number of
+   * iterations when decomposing slightly changed data.
+   *
+   * @param warmStart Warm start flag
+   */
+  public void setWarmStart(boolean warmStart) {
+    m_warmStart = warmStart;
+  }
+
+  /**
+   * Get the total number of iterations of the last transformation.
+   *
+   * @return Number of iterations
+   */
+  public int getNumIterations() {
+    return m_numIterations;
+  }
+
   /**
    * Get components.
    *
@@ -250,6 +288,7 @@ public class FastICA
 	double lim = w1.mulElementwise(w).sum(-1).abs().sub(1.0).abs().asDouble();
 
 	w = w1;
+	m_numIterations++;
 	if (lim < m_tol) {
 	  break;
 	}
@@ -282,6 +321,7 @@ public class FastICA
       Matrix W1 = symmetricDecorrelation(arg);
       double lim = W1.mul(W.t()).diag().abs().sub(1.0).abs().max();
       W = W1;
+      m_numIterations++;
       if (lim < m_tol) {
 	break;
       }
@@ -393,8 +433,20 @@ public class FastICA
       X1 = X;
     }
 
-    // Randomly initialize weights from normal dist
-    Matrix Winit = randn(m_numComponents, m_numComponents, 1);
+    // Initialize weights from the previous components (mapped into the
+    // whitened space) or randomly from normal dist
+    Matrix Winit = null;
+    if (m_warmStart && m_Components != null
+      && m_Components.numRows() == m_numComponents
+      && m_Components.numColumns() == n) {
+      if (m_whiten)
+	Winit = m_Components.mul(m_Whitening.pseudoInverse());
+      else
+	Winit = m_Components.copy();
+    }
+    if (Winit == null)
+      Winit = randn(m_numComponents, m_numComponents, 1);
+    m_numIterations = 0;
 
     // Use deflation algorithm
     if (Algorithm.DEFLATION.equals(m_algorithm)) {
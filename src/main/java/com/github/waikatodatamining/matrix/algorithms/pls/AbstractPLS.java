@@ -23,6 +23,7 @@ package com.github.waikatodatamining.matrix.algorithms.pls;
 import com.github.waikatodatamining.matrix.algorithms.Center;
 import com.github.waikatodatamining.matrix.algorithms.Standardize;
 import com.github.waikatodatamining.matrix.core.algorithm.PredictingSupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.algorithm.UnsupervisedMatrixAlgorithm;
 
@@ -84,6 +85,49 @@ public abstract class AbstractPLS
     doPLSConfigure(X, y);
   }
 
+  /**
+   * Configures the preprocessing of predictors and response from precomputed
+   * column statistics, for algorithms that offer configuration entry points
+   * that don't require the data matrices (e.g.,
+   * {@link SIMPLS#configureFromCrossProducts(CrossProductsAccumulator)}).
+   *
+   * @param meansX	the column means of the predictors
+   * @param stdDevsX	the column standard deviations of the predictors, only required for standardizing
+   * @param meansY	the column means of the response
+   * @param stdDevsY	the column standard deviations of the response, only required for standardizing
+   */
+  protected void configurePreprocessing(double[] meansX, double[] stdDevsX, double[] meansY, double[] stdDevsY) {
+    Center	centerX;
+    Center	centerY;
+    Standardize	standardizeX;
+    Standardize	standardizeY;
+
+    switch (m_PreprocessingType) {
+      case CENTER:
+        centerX = new Center();
+        centerX.configure(meansX);
+        centerY = new Center();
+        centerY.configure(meansY);
+        m_TransPredictors = centerX;
+        m_TransResponse   = centerY;
+        break;
+      case STANDARDIZE:
+        standardizeX = new Standardize();
+        standardizeX.configure(meansX, stdDevsX);
+        standardizeY = new Standardize();
+        standardizeY.configure(meansY, stdDevsY);
+        m_TransPredictors = standardizeX;
+        m_TransResponse   = standardizeY;
+        break;
+      case NONE:
+        m_TransPredictors = null;
+        m_TransResponse   = null;
+        break;
+      default:
+        throw new IllegalStateException("Unhandled preprocessing type; " + m_PreprocessingType);
+    }
+  }
+
   /**
    * PLS-specific configuration implementation. Override to configure
    * the PLS algorithm on the given matrices, after feature/target
@@ -142,6 +186,63 @@ public abstract class AbstractPLS
    */
   protected abstract Matrix doPLSPredict(Matrix X);
 
+  /**
+   * Performs predictions on the data, using only the first components of
+   * the configured model. As the first components of a model don't depend on
+   * the later ones, this equals the predictions of a model configured with
+   * the specified number of components, which allows evaluating all
+   * numbers of components with a single model.
+   *
+   * @param predictors 		the input data
+   * @param numComponents	the number of components to use (1 to {@link #getNumComponents()})
+   * @return 			the predictions
+   * @see			#canPredictWithFewerComponents()
+   */
+  public Matrix predict(Matrix predictors, int numComponents) {
+    Matrix	result;
+
+    if (predictors == null)
+      throw new NullPointerException("Can't predict against null feature matrix");
+    ensureConfigured();
+    if (!canPredictWithFewerComponents())
+      throw new MatrixAlgorithmsException(getClass().getSimpleName() + " can't predict with fewer components");
+    if ((numComponents < 1) || (numComponents > getNumComponents()))
+      throw new MatrixAlgorithmsException("Number of components must be between 1 and " + getNumComponents() + ", found: " + numComponents);
+
+    if (m_TransPredictors != null)
+      predictors = m_TransPredictors.transform(predictors);
+
+    result = doPLSPredict(predictors, numComponents);
+
+    if (m_TransResponse != null)
+      result = m_TransResponse.inverseTransform(result);
+
+    return result;
+  }
+
+  /**
+   * PLS-specific prediction implementation using only the first components.
+   * Override together with {@link #canPredictWithFewerComponents()}.
+   *
+   * @param X   		The normalised feature matrix to predict against.
+   * @param numComponents	The number of components to use.
+   * @return    		The normalised predictions.
+   */
+  protected Matrix doPLSPredict(Matrix X, int numComponents) {
+    throw new MatrixAlgorithmsException(getClass().getSimpleName() + " can't predict with fewer components");
+  }
+
+  /**
+   * Returns whether the algorithm can make predictions with fewer components
+   * than configured.
+   *
+   * @return		true if supported
+   * @see		#predict(Matrix, int)
+   */
+  public boolean canPredictWithFewerComponents() {
+    return false;
+  }
+
   /**
    * Sets the type of preprocessing to perform.
    *
@@ -0,0 +1,589 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CrossProductsAccumulator.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Accumulates the column sums and cross-products X^T*X, X^T*y and y^T*y of
+ * predictors and response, chunk by chunk. The memory requirements only
+ * depend on the number of columns, not on the number of rows, which allows
+ * training algorithms that only require the cross-products (e.g.,
+ * {@link SIMPLS#configureFromCrossProducts(CrossProductsAccumulator)}) on
+ * data streamed from disk.
+ * <br>
+ * Each call to {@link #add(Matrix, Matrix)} splits the rows into chunks,
+ * which are processed in parallel. Optionally, the rows can be weighted.
+ * The weights are frequency weights, i.e., a row with weight 2 counts like
+ * the row added twice. Hence the sample standard deviations used for
+ * standardizing are normalized by the sum of weights - 1.
+ * <br>
+ * The sums are accumulated relative to the first row seen, which avoids
+ * the cancellation of computing centered cross-products via
+ * X^T*X - n*mean*mean^T when the means are large compared to the spread.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CrossProductsAccumulator
+  implements Serializable {
+
+  private static final long serialVersionUID = -3034586197046011417L;
+
+  /** The default number of rows per chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  /** The number of predictor columns. */
+  protected int m_NumPredictors;
+
+  /** The number of response columns. */
+  protected int m_NumResponses;
+
+  /** The number of rows per chunk. */
+  protected int m_ChunkSize = DEFAULT_CHUNK_SIZE;
+
+  /** The number of rows added so far. */
+  protected long m_NumRows;
+
+  /** The sum of the row weights. */
+  protected double m_SumWeights;
+
+  /** The reference row (predictors followed by response), null if no rows yet. */
+  protected double[] m_Reference;
+
+  /** The weighted column sums relative to the reference row. */
+  protected double[] m_Sums;
+
+  /** The weighted cross-products relative to the reference row (upper triangle, row-major). */
+  protected double[] m_CrossProducts;
+
+  /**
+   * Initializes the accumulator.
+   *
+   * @param numPredictors	the number of predictor columns
+   * @param numResponses	the number of response columns
+   */
+  public CrossProductsAccumulator(int numPredictors, int numResponses) {
+    if (numPredictors < 1)
+      throw new IllegalArgumentException("At least one predictor column required, found: " + numPredictors);
+    if (numResponses < 1)
+      throw new IllegalArgumentException("At least one response column required, found: " + numResponses);
+
+    m_NumPredictors = numPredictors;
+    m_NumResponses  = numResponses;
+    m_Sums          = new double[numColumns()];
+    m_CrossProducts = new double[numColumns() * numColumns()];
+  }
+
+  /**
+   * Returns the number of predictor and response columns.
+   *
+   * @return		the number of columns
+   */
+  protected int numColumns() {
+    return m_NumPredictors + m_NumResponses;
+  }
+
+  /**
+   * Returns the number of predictor columns.
+   *
+   * @return		the number of columns
+   */
+  public int getNumPredictors() {
+    return m_NumPredictors;
+  }
+
+  /**
+   * Returns the number of response columns.
+   *
+   * @return		the number of columns
+   */
+  public int getNumResponses() {
+    return m_NumResponses;
+  }
+
+  /**
+   * Sets the number of rows per chunk.
+   *
+   * @param value	the number of rows
+   */
+  public void setChunkSize(int value) {
+    if (value < 1)
+      throw new IllegalArgumentException("Chunk size must be at least 1 but was " + value);
+    m_ChunkSize = value;
+  }
+
+  /**
+   * Returns the number of rows per chunk.
+   *
+   * @return		the number of rows
+   */
+  public int getChunkSize() {
+    return m_ChunkSize;
+  }
+
+  /**
+   * Returns the number of rows added so far.
+   *
+   * @return		the number of rows
+   */
+  public long getNumRows() {
+    return m_NumRows;
+  }
+
+  /**
+   * Returns the sum of the row weights, equals the number of rows if
+   * unweighted.
+   *
+   * @return		the sum
+   */
+  public double getSumWeights() {
+    return m_SumWeights;
+  }
+
+  /**
+   * Adds the rows of predictors and response.
+   *
+   * @param X		the predictors
+   * @param y		the response
+   */
+  public void add(Matrix X, Matrix y) {
+    add(X, y, null);
+  }
+
+  /**
+   * Adds the rows of predictors and response, weighting the rows.
+   *
+   * @param X		the predictors
+   * @param y		the response
+   * @param weights	the row weights (frequencies), null for unweighted
+   */
+  public void add(Matrix X, Matrix y, double[] weights) {
+    List<CrossProductsAccumulator>	partial;
+    int					numRows;
+    int					numChunks;
+    int					numTasks;
+
+    if (X.numColumns() != m_NumPredictors)
+      throw new InvalidShapeException("Expected " + m_NumPredictors + " predictor columns", X);
+    if (y.numColumns() != m_NumResponses)
+      throw new InvalidShapeException("Expected " + m_NumResponses + " response columns", y);
+    if (X.numRows() != y.numRows())
+      throw new InvalidShapeException("Predictors and response differ in number of rows", X, y);
+    if ((weights != null) && (weights.length != X.numRows()))
+      throw new InvalidShapeException("Expected " + X.numRows() + " weights, found " + weights.length);
+
+    numRows = X.numRows();
+    if (numRows == 0)
+      return;
+
+    if (m_Reference == null) {
+      m_Reference = new double[numColumns()];
+      for (int j = 0; j < m_NumPredictors; j++)
+	m_Reference[j] = X.get(0, j);
+      for (int j = 0; j < m_NumResponses; j++)
+	m_Reference[m_NumPredictors + j] = y.get(0, j);
+    }
+
+    // each task works on every numTasks-th chunk, using its own sums
+    numChunks = (numRows + m_ChunkSize - 1) / m_ChunkSize;
+    numTasks  = Math.max(1, Math.min(numChunks, ForkJoinPool.getCommonPoolParallelism()));
+    partial   = IntStream.range(0, numTasks).parallel().mapToObj(task -> {
+      CrossProductsAccumulator result = newPartial();
+      for (int chunk = task; chunk < numChunks; chunk += numTasks) {
+	int start = chunk * m_ChunkSize;
+	int end = Math.min(numRows, start + m_ChunkSize);
+	result.addChunk(X.getRows(start, end).toRawCopy2D(), y.getRows(start, end).toRawCopy2D(), weights, start);
+      }
+      return result;
+    }).collect(Collectors.toList());
+
+    for (CrossProductsAccumulator p: partial)
+      merge(p);
+  }
+
+  /**
+   * Creates an empty accumulator with the same shape and reference row.
+   *
+   * @return		the accumulator
+   */
+  protected CrossProductsAccumulator newPartial() {
+    CrossProductsAccumulator	result;
+
+    result = new CrossProductsAccumulator(m_NumPredictors, m_NumResponses);
+    result.m_Reference = m_Reference;
+
+    return result;
+  }
+
+  /**
+   * Adds a chunk of rows, relative to the reference row. The cross-products
+   * of the chunk Z (rows relative to the reference row) are computed with a
+   * single matrix product Z^T*W*Z.
+   *
+   * @param X		the predictor rows
+   * @param y		the response rows
+   * @param weights	the row weights, null for unweighted
+   * @param offset	the index of the first row of the chunk in the weights
+   */
+  protected void addChunk(double[][] X, double[][] y, double[] weights, int offset) {
+    double[]	z;
+    double[]	wz;
+    Matrix	Z;
+    Matrix	ZtWZ;
+    double	w;
+    int		n;
+    int		d;
+    int		r;
+    int		i;
+    int		j;
+
+    n  = X.length;
+    d  = numColumns();
+    z  = new double[n * d];
+    wz = (weights == null) ? z : new double[n * d];
+    for (r = 0; r < n; r++) {
+      for (j = 0; j < m_NumPredictors; j++)
+	z[r + j * n] = X[r][j] - m_Reference[j];
+      for (j = 0; j < m_NumResponses; j++)
+	z[r + (m_NumPredictors + j) * n] = y[r][j] - m_Reference[m_NumPredictors + j];
+    }
+
+    // weights and sums
+    for (r = 0; r < n; r++) {
+      w = (weights == null) ? 1.0 : weights[offset + r];
+      m_SumWeights += w;
+      if (weights != null) {
+	for (j = 0; j < d; j++)
+	  wz[r + j * n] = w * z[r + j * n];
+      }
+    }
+    for (j = 0; j < d; j++) {
+      for (r = 0; r < n; r++)
+	m_Sums[j] += wz[r + j * n];
+    }
+    m_NumRows += n;
+
+    // cross-products
+    Z = MatrixFactory.fromColumnMajor(z, n);
+    if (weights == null)
+      ZtWZ = Z.gram();
+    else
+      ZtWZ = Z.tmul(MatrixFactory.fromColumnMajor(wz, n));
+    for (i = 0; i < d; i++) {
+      for (j = i; j < d; j++)
+	m_CrossProducts[i * d + j] += ZtWZ.get(i, j);
+    }
+  }
+
+  /**
+   * Merges the sums of the other accumulator into this one.
+   *
+   * @param other	the accumulator to merge
+   */
+  public void merge(CrossProductsAccumulator other) {
+    double[]	sums;
+    double[][]	crossProducts;
+    int		d;
+    int		i;
+    int		j;
+
+    if ((other.m_NumPredictors != m_NumPredictors) || (other.m_NumResponses != m_NumResponses))
+      throw new InvalidShapeException("Cannot merge accumulators with different numbers of columns");
+
+    if (other.m_Reference == null)
+      return;
+    if (m_Reference == null)
+      m_Reference = other.m_Reference.clone();
+
+    d             = numColumns();
+    sums          = other.getSums(m_Reference);
+    crossProducts = other.getCrossProducts(m_Reference);
+    m_NumRows    += other.m_NumRows;
+    m_SumWeights += other.m_SumWeights;
+    for (i = 0; i < d; i++) {
+      m_Sums[i] += sums[i];
+      for (j = i; j < d; j++)
+	m_CrossProducts[i * d + j] += crossProducts[i][j];
+    }
+  }
+
+  /**
+   * Returns the weighted column sums relative to the specified reference.
+   *
+   * @param reference	the reference row
+   * @return		the sums
+   */
+  protected double[] getSums(double[] reference) {
+    double[]	result;
+    int		i;
+
+    result = new double[numColumns()];
+    for (i = 0; i < result.length; i++) {
+      result[i] = m_Sums[i];
+      if (m_Reference != null)
+	result[i] -= m_SumWeights * (reference[i] - m_Reference[i]);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the full, weighted cross-products relative to the specified
+   * reference:
+   * sum w*(z - ref)*(z - ref)^T = S - s*d^T - d*s^T + W*d*d^T, with d = ref - r,
+   * where S and s are the cross-products and sums relative to the reference
+   * row r of this accumulator.
+   *
+   * @param reference	the reference row
+   * @return		the cross-products
+   */
+  protected double[][] getCrossProducts(double[] reference) {
+    double[][]	result;
+    double[]	diff;
+    int		d;
+    int		i;
+    int		j;
+
+    d      = numColumns();
+    diff   = new double[d];
+    result = new double[d][d];
+    if (m_Reference != null) {
+      for (i = 0; i < d; i++)
+	diff[i] = reference[i] - m_Reference[i];
+    }
+    for (i = 0; i < d; i++) {
+      for (j = i; j < d; j++) {
+	result[i][j] = m_CrossProducts[i * d + j]
+	  - m_Sums[i] * diff[j]
+	  - diff[i] * m_Sums[j]
+	  + m_SumWeights * diff[i] * diff[j];
+	result[j][i] = result[i][j];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the column means of predictors and response.
+   *
+   * @return		the means
+   */
+  protected double[] getMeans() {
+    double[]	result;
+    int		i;
+
+    result = new double[numColumns()];
+    if (m_SumWeights == 0.0)
+      return result;
+    for (i = 0; i < result.length; i++)
+      result[i] = m_Reference[i] + m_Sums[i] / m_SumWeights;
+
+    return result;
+  }
+
+  /**
+   * Returns the column standard deviations of predictors and response
+   * (sample standard deviations, i.e., normalized by the sum of weights - 1,
+   * treating the weights as frequencies). Returns zeros if the weights sum
+   * to at most 1, for which the sample standard deviation is undefined.
+   *
+   * @return		the standard deviations
+   */
+  protected double[] getStdDevs() {
+    double[]	result;
+    double	var;
+    int		d;
+    int		i;
+
+    d      = numColumns();
+    result = new double[d];
+    if (m_SumWeights <= 1.0)
+      return result;
+    for (i = 0; i < d; i++) {
+      var       = (m_CrossProducts[i * d + i] - m_Sums[i] * m_Sums[i] / m_SumWeights) / (m_SumWeights - 1);
+      result[i] = Math.sqrt(Math.max(0.0, var));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the means of the predictors.
+   *
+   * @return		the means
+   */
+  public double[] getPredictorMeans() {
+    return subArray(getMeans(), 0, m_NumPredictors);
+  }
+
+  /**
+   * Returns the standard deviations of the predictors.
+   *
+   * @return		the standard deviations
+   */
+  public double[] getPredictorStdDevs() {
+    return subArray(getStdDevs(), 0, m_NumPredictors);
+  }
+
+  /**
+   * Returns the means of the response.
+   *
+   * @return		the means
+   */
+  public double[] getResponseMeans() {
+    return subArray(getMeans(), m_NumPredictors, m_NumResponses);
+  }
+
+  /**
+   * Returns the standard deviations of the response.
+   *
+   * @return		the standard deviations
+   */
+  public double[] getResponseStdDevs() {
+    return subArray(getStdDevs(), m_NumPredictors, m_NumResponses);
+  }
+
+  /**
+   * Returns part of the array.
+   *
+   * @param values	the array
+   * @param start	the first index
+   * @param length	the number of elements
+   * @return		the part
+   */
+  protected static double[] subArray(double[] values, int start, int length) {
+    double[]	result;
+
+    result = new double[length];
+    System.arraycopy(values, start, result, 0, length);
+
+    return result;
+  }
+
+  /**
+   * Returns the cross-products of the preprocessed predictors and response,
+   * i.e., [X y]^T * [X y].
+   *
+   * @param type	the preprocessing to apply to predictors and response
+   * @return		the cross-products
+   */
+  protected double[][] getCrossProducts(PreprocessingType type) {
+    double[][]	result;
+    double[]	stdDevs;
+    double	scale;
+    int		d;
+    int		i;
+    int		j;
+
+    d = numColumns();
+    switch (type) {
+      case NONE:
+	result = getCrossProducts(new double[d]);
+	break;
+      case CENTER:
+      case STANDARDIZE:
+	result = getCrossProducts(m_Reference == null ? new double[d] : m_Reference);
+	for (i = 0; i < d; i++) {
+	  for (j = 0; j < d; j++) {
+	    if (m_SumWeights > 0.0)
+	      result[i][j] -= m_Sums[i] * m_Sums[j] / m_SumWeights;
+	  }
+	}
+	if (type == PreprocessingType.STANDARDIZE) {
+	  // zero standard deviations are not scaled, see Utils.normalise
+	  stdDevs = getStdDevs();
+	  for (i = 0; i < d; i++) {
+	    for (j = 0; j < d; j++) {
+	      scale = (stdDevs[i] == 0.0 ? 1.0 : stdDevs[i]) * (stdDevs[j] == 0.0 ? 1.0 : stdDevs[j]);
+	      result[i][j] /= scale;
+	    }
+	  }
+	}
+	break;
+      default:
+	throw new IllegalStateException("Unhandled preprocessing type: " + type);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a block of the cross-products as matrix.
+   *
+   * @param type	the preprocessing to apply to predictors and response
+   * @param rowStart	the first row
+   * @param numRows	the number of rows
+   * @param colStart	the first column
+   * @param numCols	the number of columns
+   * @return		the block
+   */
+  protected Matrix getBlock(PreprocessingType type, int rowStart, int numRows, int colStart, int numCols) {
+    double[][]	all;
+    double[][]	block;
+    int		i;
+
+    all   = getCrossProducts(type);
+    block = new double[numRows][];
+    for (i = 0; i < numRows; i++)
+      block[i] = subArray(all[rowStart + i], colStart, numCols);
+
+    return MatrixFactory.fromRaw(block);
+  }
+
+  /**
+   * Returns X^T*X of the preprocessed predictors.
+   *
+   * @param type	the preprocessing to apply
+   * @return		the cross-products
+   */
+  public Matrix getXtX(PreprocessingType type) {
+    return getBlock(type, 0, m_NumPredictors, 0, m_NumPredictors);
+  }
+
+  /**
+   * Returns X^T*y of the preprocessed predictors and response.
+   *
+   * @param type	the preprocessing to apply
+   * @return		the cross-products
+   */
+  public Matrix getXty(PreprocessingType type) {
+    return getBlock(type, 0, m_NumPredictors, m_NumPredictors, m_NumResponses);
+  }
+
+  /**
+   * Returns y^T*y of the preprocessed response.
+   *
+   * @param type	the preprocessing to apply
+   * @return		the cross-products
+   */
+  public Matrix getYtY(PreprocessingType type) {
+    return getBlock(type, m_NumPredictors, m_NumResponses, m_NumPredictors, m_NumResponses);
+  }
+}
@@ -6,8 +6,15 @@ import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Domain Invariant Partial Least Squares.
@@ -72,6 +79,15 @@ public class DIPLS
   /** Target domain X center */
   protected Center m_Xtcenter = new Center();
 
+  /** Number of threads for fitting a lambda path */
+  protected int m_NumThreads = 1;
+
+  /** Decomposition shared along a lambda path, null if not fitting a path */
+  protected transient PathDecomposition m_PathDecomposition;
+
+  /** The models of the lambda path currently being fitted */
+  protected transient List<DIPLS> m_PathModels;
+
   @Override
   protected void doReset() {
     super.doReset();
@@ -110,6 +126,30 @@ public class DIPLS
     }
   }
 
+  /**
+   * Get the number of threads for fitting a lambda path.
+   *
+   * @return Number of threads, -1 for the number of available processors
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Set the number of threads for fitting a lambda path.
+   *
+   * @param numThreads Number of threads, -1 for the number of available
+   *                   processors
+   */
+  public void setNumThreads(int numThreads) {
+    if (numThreads < 1 && numThreads != -1) {
+      getLogger().warning("Number of threads must be at least 1 or -1 but was " + numThreads + ".");
+    }
+    else {
+      m_NumThreads = numThreads;
+    }
+  }
+
   @Override
   public String[] getMatrixNames() {
     return new String[]{
@@ -167,8 +207,6 @@ public class DIPLS
     Matrix y = null;
     Matrix wdi, t, ts, tt, p, ps, pt, ca;
     Matrix c = null;
-    int numFeatures = predictors.numColumns();
-    Matrix I = MatrixFactory.eye(numFeatures);
 
     // Check if correct initialization method was called
     if (m_ns == 0 || m_nt == 0)
@@ -219,20 +257,20 @@ public class DIPLS
     m_b0 = y.mean(-1).asDouble();
     y = y.sub(m_b0);
 
+    // (I + c*D)^-1 for the domain covariance difference D of the deflated
+    // source and target data
+    CovarianceDifferenceSolver solver = createSolver(Xs, Xt);
+
     // Start loop over number of components
     for (int a = 0; a < getNumComponents(); a++) {
       if (m_Stopped)
 	throw new StoppedException();
 
-      // Calculate domain invariant weights
+      // Calculate domain invariant weights:
+      // (y'X/||y||^2 * M^-1)' = M^-1 * X'y/||y||^2 as M = I + c*D is symmetric
       double yNorm2Squared = y.norm2squared();
-      Matrix wdiLHS = y.t().mul(X).div(yNorm2Squared);
-      Matrix XstXs = Xs.t().mul(Xs).mul(1.0 / (m_ns - 1.0));
-      Matrix XttXt = Xt.t().mul(Xt).mul(1.0 / (m_nt - 1.0));
-      Matrix XsDiffXt = XstXs.sub(XttXt);
-      Matrix wdiRHS = I.add(XsDiffXt.mul(m_lambda / (2 * yNorm2Squared))).inverse();
-      wdi = wdiLHS.mul(wdiRHS).t();
-      wdi = wdi.normalized();
+      wdi = solver.solve(m_lambda / (2 * yNorm2Squared), X.tmul(y), Xs, Xt);
+      wdi = wdi.div(yNorm2Squared).normalized();
 
       // Calculate loadings
       t = X.mul(wdi);
@@ -240,10 +278,13 @@ public class DIPLS
       tt = Xt.mul(wdi);
 
       // Calculate scores
-      p = (t.t().mul(t)).inverse().mul(t.t()).mul(X);
-      ps = (ts.t().mul(ts)).inverse().mul(ts.t()).mul(Xs);
-      pt = (tt.t().mul(tt)).inverse().mul(tt.t()).mul(Xt);
-      ca = (t.t().mul(t)).inverse().mul(y.t()).mul(t);
+      p = t.tmul(X).div(t.norm2squared());
+      ps = ts.tmul(Xs).div(ts.norm2squared());
+      pt = tt.tmul(Xt).div(tt.norm2squared());
+      ca = y.tmul(t).div(t.norm2squared());
+
+      // Downdate D according to the deflation of Xs and Xt
+      solver.downdate(ts, ps, tt, pt);
 
       // Deflate X, Xs, Xt, y
       X = X.sub(t.mul(p));
@@ -266,7 +307,250 @@ public class DIPLS
     }
 
     // Calculate regression coefficients
-    m_bdi = m_Wdi.mul((m_P.t().mul(m_Wdi)).inverse()).mul(c.t());
+    m_bdi = m_Wdi.mul(m_P.tmul(m_Wdi).solve(c.t()));
+  }
+
+  /**
+   * Creates the solver for (I + c*D)^-1, depending on the data dimensions
+   * and whether a lambda path gets fitted.
+   *
+   * @param Xs Centered source domain data
+   * @param Xt Centered target domain data
+   * @return Solver
+   */
+  protected CovarianceDifferenceSolver createSolver(Matrix Xs, Matrix Xt) {
+    if (m_PathDecomposition != null)
+      return new EigenSolver(m_PathDecomposition.decompose(() -> covarianceDifference(Xs, Xt)));
+    else if (useSampleSpace(Xs.numRows() + Xt.numRows(), Xs.numColumns()))
+      return new SampleSpaceSolver(Xs, Xt);
+    else
+      return new FeatureSpaceSolver(covarianceDifference(Xs, Xt));
+  }
+
+  /**
+   * Whether to apply (I + c*D)^-1 in the sample space via Woodbury rather
+   * than solving the (features x features) system.
+   *
+   * @param numSamples  Number of source and target samples
+   * @param numFeatures Number of features
+   * @return True if the sample space is smaller
+   */
+  protected boolean useSampleSpace(int numSamples, int numFeatures) {
+    return numSamples < numFeatures;
+  }
+
+  /**
+   * Compute the domain covariance difference D = Xs'Xs/(ns-1) - Xt'Xt/(nt-1).
+   *
+   * @param Xs Centered source domain data
+   * @param Xt Centered target domain data
+   * @return Covariance difference
+   */
+  protected Matrix covarianceDifference(Matrix Xs, Matrix Xt) {
+    return Xs.gram().mul(1.0 / (m_ns - 1.0)).sub(Xt.gram().mul(1.0 / (m_nt - 1.0)));
+  }
+
+  /**
+   * Applies (I + c*D)^-1 for the domain covariance difference D, which only
+   * changes by rank-1 downdates under the deflation of Xs and Xt.
+   */
+  protected abstract class CovarianceDifferenceSolver {
+
+    /**
+     * Compute (I + c*D)^-1 * b.
+     *
+     * @param scale The scalar c
+     * @param b     Right-hand side
+     * @param Xs    Current (deflated) source domain data
+     * @param Xt    Current (deflated) target domain data
+     * @return Solution
+     */
+    public abstract Matrix solve(double scale, Matrix b, Matrix Xs, Matrix Xt);
+
+    /**
+     * Downdate D according to the deflations Xs - ts*ps and Xt - tt*pt.
+     *
+     * @param ts Source domain scores
+     * @param ps Source domain loadings (row vector)
+     * @param tt Target domain scores
+     * @param pt Target domain loadings (row vector)
+     */
+    public abstract void downdate(Matrix ts, Matrix ps, Matrix tt, Matrix pt);
+  }
+
+  /**
+   * Maintains D itself and solves the (features x features) system.
+   */
+  protected class FeatureSpaceSolver extends CovarianceDifferenceSolver {
+
+    /** The covariance difference */
+    protected Matrix m_CovDiff;
+
+    public FeatureSpaceSolver(Matrix covDiff) {
+      m_CovDiff = covDiff;
+    }
+
+    @Override
+    public Matrix solve(double scale, Matrix b, Matrix Xs, Matrix Xt) {
+      return MatrixFactory.eye(b.numRows()).add(m_CovDiff.mul(scale)).solve(b);
+    }
+
+    @Override
+    public void downdate(Matrix ts, Matrix ps, Matrix tt, Matrix pt) {
+      m_CovDiff = m_CovDiff
+	.sub(ps.tmul(ps).mul(ts.norm2squared() / (m_ns - 1.0)))
+	.add(pt.tmul(pt).mul(tt.norm2squared() / (m_nt - 1.0)));
+    }
+  }
+
+  /**
+   * Uses D = Z'SZ with Z = [Xs; Xt] and S diagonal with 1/(ns-1) for the
+   * source and -1/(nt-1) for the target rows, applying (I + c*D)^-1 via
+   * Woodbury in the sample space: b - Z' * ((cS)^-1 + ZZ')^-1 * Z * b.
+   * ZZ' gets projected according to the deflation.
+   */
+  protected class SampleSpaceSolver extends CovarianceDifferenceSolver {
+
+    /** ZZ' */
+    protected Matrix m_RowGram;
+
+    public SampleSpaceSolver(Matrix Xs, Matrix Xt) {
+      Matrix Z = Xs.concatAlongRows(Xt);
+      m_RowGram = Z.mult(Z);
+    }
+
+    @Override
+    public Matrix solve(double scale, Matrix b, Matrix Xs, Matrix Xt) {
+      int numSource = Xs.numRows();
+      Matrix K = m_RowGram.copy();
+      for (int i = 0; i < K.numRows(); i++) {
+	double sInv = i < numSource ? (m_ns - 1.0) : -(m_nt - 1.0);
+	K.set(i, i, K.get(i, i) + sInv / scale);
+      }
+      Matrix u = K.solve(Xs.mul(b).concatAlongRows(Xt.mul(b)));
+      Matrix Ztu = Xs.tmul(u.getRows(0, numSource)).add(Xt.tmul(u.getRows(numSource, u.numRows())));
+      return b.sub(Ztu);
+    }
+
+    @Override
+    public void downdate(Matrix ts, Matrix ps, Matrix tt, Matrix pt) {
+      projectOut(ts.concatAlongRows(MatrixFactory.zeros(tt.numRows(), 1)));
+      projectOut(MatrixFactory.zeros(ts.numRows(), 1).concatAlongRows(tt));
+    }
+
+    /**
+     * Applies the projection that removes the direction v from both sides
+     * of ZZ', i.e., (I - vv')ZZ'(I - vv') with v normalized.
+     *
+     * @param v Direction (column vector)
+     */
+    protected void projectOut(Matrix v) {
+      v = v.div(v.norm2());
+      Matrix g = m_RowGram.mul(v);
+      double vtg = v.tmul(g).asDouble();
+      m_RowGram = m_RowGram.sub(v.mult(g)).sub(g.mult(v)).add(v.mult(v).mul(vtg));
+    }
+  }
+
+  /**
+   * Uses D = D0 + U*diag(s)*U', where the eigendecomposition D0 = Q*L*Q' of
+   * the initial covariance difference is shared along a lambda path and the
+   * columns of U are the loadings of the downdates. (I + c*D0)^-1 is a
+   * diagonal rescaling in the eigenbasis, the low-rank part is applied via
+   * Woodbury, hence no (features x features) system gets solved.
+   */
+  protected class EigenSolver extends CovarianceDifferenceSolver {
+
+    /** The decomposition of D0 */
+    protected PathDecomposition m_Decomposition;
+
+    /** The loadings of the downdates */
+    protected Matrix m_U;
+
+    /** The scales of the downdates */
+    protected List<Double> m_Scales = new ArrayList<>();
+
+    public EigenSolver(PathDecomposition decomposition) {
+      m_Decomposition = decomposition;
+    }
+
+    @Override
+    public Matrix solve(double scale, Matrix b, Matrix Xs, Matrix Xt) {
+      Matrix Ainvb = m_Decomposition.solve(scale, b);
+      if (m_U == null)
+	return Ainvb;
+
+      Matrix AinvU = m_Decomposition.solve(scale, m_U);
+      Matrix K = m_U.tmul(AinvU);
+      for (int i = 0; i < K.numRows(); i++)
+	K.set(i, i, K.get(i, i) + 1.0 / (scale * m_Scales.get(i)));
+      return Ainvb.sub(AinvU.mul(K.solve(m_U.tmul(Ainvb))));
+    }
+
+    @Override
+    public void downdate(Matrix ts, Matrix ps, Matrix tt, Matrix pt) {
+      add(ps.t(), -ts.norm2squared() / (m_ns - 1.0));
+      add(pt.t(), tt.norm2squared() / (m_nt - 1.0));
+    }
+
+    /**
+     * Adds the term s*u*u' to the low-rank part.
+     *
+     * @param u Column vector
+     * @param s Scale
+     */
+    protected void add(Matrix u, double s) {
+      if (s == 0.0)
+	return;
+      m_U = (m_U == null) ? u : m_U.concatAlongColumns(u);
+      m_Scales.add(s);
+    }
+  }
+
+  /**
+   * The eigendecomposition of the initial domain covariance difference,
+   * computed once and shared by all models of a lambda path.
+   */
+  protected static class PathDecomposition {
+
+    /** The eigenvectors Q */
+    protected Matrix m_Eigenvectors;
+
+    /** The eigenvalues */
+    protected double[] m_Eigenvalues;
+
+    /**
+     * Decomposes the covariance difference, unless already done by another
+     * model of the path.
+     *
+     * @param covDiff Supplies the covariance difference
+     * @return Itself
+     */
+    public synchronized PathDecomposition decompose(Supplier<Matrix> covDiff) {
+      if (m_Eigenvectors == null) {
+	Matrix D0 = covDiff.get();
+	m_Eigenvectors = D0.getEigenvectors(false);
+	m_Eigenvalues = D0.getEigenvalues().toRawCopy1D();
+      }
+      return this;
+    }
+
+    /**
+     * Compute (I + c*D0)^-1 * B = Q * (I + c*L)^-1 * Q' * B.
+     *
+     * @param scale The scalar c
+     * @param B     Right-hand side(s)
+     * @return Solution
+     */
+    public Matrix solve(double scale, Matrix B) {
+      Matrix QtB = m_Eigenvectors.tmul(B);
+      for (int i = 0; i < QtB.numRows(); i++) {
+	double factor = 1.0 / (1.0 + scale * m_Eigenvalues[i]);
+	for (int j = 0; j < QtB.numColumns(); j++)
+	  QtB.set(i, j, QtB.get(i, j) * factor);
+      }
+      return m_Eigenvectors.mul(QtB);
+    }
   }
 
   /**
@@ -377,6 +661,179 @@ public class DIPLS
     configure(X, y);
   }
 
+  /**
+   * Unsupervised initialization of one model per lambda.
+   *
+   * @param lambdas                Lambda values
+   * @param predictorsSourceDomain Predictors from source domain
+   * @param predictorsTargetDomain Predictors from target domain
+   * @param responseSourceDomain   Response from source domain
+   * @return Models, one per lambda
+   * @see #configurePath(double[], int, int, ModelAdaptionStrategy, Matrix, Matrix)
+   */
+  public List<DIPLS> configureUnsupervisedPath(double[] lambdas,
+                                               Matrix predictorsSourceDomain,
+                                               Matrix predictorsTargetDomain,
+                                               Matrix responseSourceDomain) {
+    Matrix X = predictorsSourceDomain.concatAlongRows(predictorsTargetDomain);
+    Matrix y = responseSourceDomain;
+
+    return configurePath(lambdas, predictorsSourceDomain.numRows(),
+      predictorsTargetDomain.numRows(), ModelAdaptionStrategy.UNSUPERVISED, X, y);
+  }
+
+  /**
+   * Supervised initialization of one model per lambda.
+   *
+   * @param lambdas                Lambda values
+   * @param predictorsSourceDomain Predictors from source domain
+   * @param predictorsTargetDomain Predictors from target domain
+   * @param responseSourceDomain   Response from source domain
+   * @param responseTargetDomain   Response from target domain
+   * @return Models, one per lambda
+   * @see #configurePath(double[], int, int, ModelAdaptionStrategy, Matrix, Matrix)
+   */
+  public List<DIPLS> configureSupervisedPath(double[] lambdas,
+                                             Matrix predictorsSourceDomain,
+                                             Matrix predictorsTargetDomain,
+                                             Matrix responseSourceDomain,
+                                             Matrix responseTargetDomain) {
+    Matrix X = predictorsSourceDomain.concatAlongRows(predictorsTargetDomain);
+    Matrix y = responseSourceDomain.concatAlongRows(responseTargetDomain);
+
+    return configurePath(lambdas, predictorsSourceDomain.numRows(),
+      predictorsTargetDomain.numRows(), ModelAdaptionStrategy.SUPERVISED, X, y);
+  }
+
+  /**
+   * Semisupervised initialization of one model per lambda.
+   *
+   * @param lambdas                         Lambda values
+   * @param predictorsSourceDomain          Predictors from source domain
+   * @param predictorsTargetDomain          Predictors from target domain
+   * @param predictorsTargetDomainUnlabeled Predictors from target domain
+   *                                        without labels
+   * @param responseSourceDomain            Response from source domain
+   * @param responseTargetDomain            Response from target domain
+   * @return Models, one per lambda
+   * @see #configurePath(double[], int, int, ModelAdaptionStrategy, Matrix, Matrix)
+   */
+  public List<DIPLS> configureSemiSupervisedPath(double[] lambdas,
+                                                 Matrix predictorsSourceDomain,
+                                                 Matrix predictorsTargetDomain,
+                                                 Matrix predictorsTargetDomainUnlabeled,
+                                                 Matrix responseSourceDomain,
+                                                 Matrix responseTargetDomain) {
+    Matrix X = predictorsSourceDomain
+      .concatAlongRows(predictorsTargetDomain)
+      .concatAlongRows(predictorsTargetDomainUnlabeled);
+    Matrix y = responseSourceDomain.concatAlongRows(responseTargetDomain);
+
+    return configurePath(lambdas, predictorsSourceDomain.numRows(),
+      predictorsTargetDomain.numRows(), ModelAdaptionStrategy.SEMISUPERVISED, X, y);
+  }
+
+  /**
+   * Fits one copy of this setup per lambda, using the given domain sizes and
+   * model adaption strategy (this model itself is left unchanged). The
+   * eigendecomposition of the initial domain covariance difference D0 is
+   * computed only once and shared, as (I + c*D0)^-1 is merely a diagonal
+   * rescaling in its eigenbasis for any lambda. The downdates of the
+   * subsequent components are applied via Woodbury. The models get fitted in
+   * parallel, see {@link #setNumThreads(int)}.
+   *
+   * @param lambdas    Lambda values
+   * @param ns         Number of source domain samples
+   * @param nt         Number of target domain samples
+   * @param strategy   Model adaption strategy
+   * @param predictors Source and target domain predictors
+   * @param response   Response
+   * @return Models, one per lambda
+   */
+  protected List<DIPLS> configurePath(double[] lambdas, int ns, int nt, ModelAdaptionStrategy strategy,
+                                      Matrix predictors, Matrix response) {
+    PathDecomposition decomposition = new PathDecomposition();
+    List<DIPLS> models = new ArrayList<>();
+    for (double lambda : lambdas) {
+      if (Math.abs(lambda) < 1e-8)
+	throw new MatrixAlgorithmsException("Lambda must be != 0 but was " + lambda + ".");
+      DIPLS model = newPathModel(lambda, ns, nt, strategy);
+      model.m_PathDecomposition = decomposition;
+      models.add(model);
+    }
+
+    m_Stopped = false;
+    m_PathModels = models;
+    int numThreads = (m_NumThreads == -1) ? Runtime.getRuntime().availableProcessors() : m_NumThreads;
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, models.size())));
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (DIPLS model : models)
+	futures.add(executor.submit(() -> model.configure(predictors, response)));
+      for (int i = 0; i < futures.size(); i++) {
+	try {
+	  futures.get(i).get();
+	}
+	catch (ExecutionException e) {
+	  stop();
+	  if (e.getCause() instanceof RuntimeException)
+	    throw (RuntimeException) e.getCause();
+	  throw new MatrixAlgorithmsException("Failed to fit lambda=" + lambdas[i], e.getCause());
+	}
+	catch (InterruptedException e) {
+	  stop();
+	  Thread.currentThread().interrupt();
+	  throw new StoppedException("Interrupted while fitting lambda path");
+	}
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      m_PathModels = null;
+      for (DIPLS model : models)
+	model.m_PathDecomposition = null;
+    }
+
+    if (m_Stopped)
+      throw new StoppedException();
+
+    return models;
+  }
+
+  /**
+   * Creates an unconfigured model for the lambda path from the setup of this
+   * model, i.e., preprocessing and number of components, with the given
+   * domain sizes and model adaption strategy. Subclasses with additional
+   * setup need to override this.
+   *
+   * @param lambda   Lambda value
+   * @param ns       Number of source domain samples
+   * @param nt       Number of target domain samples
+   * @param strategy Model adaption strategy
+   * @return Model
+   */
+  protected DIPLS newPathModel(double lambda, int ns, int nt, ModelAdaptionStrategy strategy) {
+    DIPLS result = new DIPLS();
+    result.setDebug(getDebug());
+    result.setPreprocessingType(getPreprocessingType());
+    result.setNumComponents(getNumComponents());
+    result.m_lambda = lambda;
+    result.m_ns = ns;
+    result.m_nt = nt;
+    result.m_modelAdaptionStrategy = strategy;
+    return result;
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    List<DIPLS> models = m_PathModels;
+    if (models != null) {
+      for (DIPLS model : models)
+	model.stop();
+    }
+  }
+
   /**
    * Model Adaption Strategy. Indicates, how to initialize the algorithm.
    */
@@ -1,7 +1,12 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.algorithms.Center;
+import com.github.waikatodatamining.matrix.algorithms.pls.kernel.Nystroem;
+import com.github.waikatodatamining.matrix.algorithms.pls.kernel.Nystroem.LandmarkSelection;
+import com.github.waikatodatamining.matrix.algorithms.pls.kernel.RandomFourierFeatures;
 import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.algorithm.UnsupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.algorithms.pls.kernel.AbstractKernel;
@@ -13,6 +18,23 @@ import com.github.waikatodatamining.matrix.algorithms.pls.kernel.RBFKernel;
  * See here:
  * <a href="http://www.jmlr.org/papers/volume2/rosipal01a/rosipal01a.pdf">Kernel Partial Least Squares Regression in Reproducing
  * Kernel Hilbert Space</a>
+ * <br>
+ * Instead of the exact kernel matrices, which are quadratic in the number of
+ * training rows, an approximation can be used (see
+ * {@link #setApproximation(KernelApproximation)}). The data then gets mapped
+ * into an explicit feature space with a fixed number of dimensions, in which
+ * linear PLS is performed.
+ * <br>
+ * In compact mode (see {@link #setCompact(boolean)}), only what is required
+ * for transforming and predicting is retained after configuration, i.e., the
+ * training points, the column means of the training kernel matrix and the
+ * scores on Y. With precomputed dual coefficients
+ * (see {@link #setDualCoefficients(boolean)}), predicting only requires a
+ * single product of the test kernel matrix with the coefficients.
+ * <br>
+ * With warm start (see {@link #setWarmStart(boolean)}), the inner loop of
+ * each component starts from the Y loadings of the previous configuration
+ * instead of random scores.
  *
  * @author Steven Lang
  */
@@ -23,11 +45,29 @@ public class KernelPLS
 
   public static final int SEED = 0;
 
+  /**
+   * Approximations of the kernel via an explicit feature space.
+   */
+  public enum KernelApproximation {
+    /** No approximation, use the exact kernel matrices */
+    NONE,
+    /** Nyström approximation based on landmark rows, see {@link Nystroem} */
+    NYSTROEM,
+    /** Random Fourier features, only for {@link RBFKernel}, see {@link RandomFourierFeatures} */
+    RANDOM_FOURIER_FEATURES
+  }
+
   /** Calibration data in feature space */
   protected Matrix m_K_orig;
 
   protected Matrix m_K_deflated;
 
+  /** Column means of the calibration data in feature space */
+  protected double[] m_K_origColMeans;
+
+  /** Overall mean of the calibration data in feature space */
+  protected double m_K_origMean;
+
   /** Scores on K */
   protected Matrix m_T;
 
@@ -61,6 +101,51 @@ public class KernelPLS
   /** Center Y transformation */
   protected Center m_CenterY = new Center();
 
+  /** Kernel approximation */
+  protected KernelApproximation m_Approximation = KernelApproximation.NONE;
+
+  /** Number of features of the approximation (landmarks for Nyström) */
+  protected int m_NumFeatures = 100;
+
+  /** Selection of the landmarks for the Nyström approximation */
+  protected LandmarkSelection m_LandmarkSelection = LandmarkSelection.UNIFORM;
+
+  /** Map into the approximated feature space */
+  protected UnsupervisedMatrixAlgorithm m_FeatureMap;
+
+  /** Center transformation in the approximated feature space */
+  protected Center m_CenterPhi;
+
+  /** Calibration data in the approximated feature space (configuration only) */
+  protected Matrix m_Phi_orig;
+
+  /** Deflated calibration data in the approximated feature space (configuration only) */
+  protected Matrix m_Phi_deflated;
+
+  /** Calibration data in the approximated feature space times scores on Y */
+  protected Matrix m_PhiTransU;
+
+  /** Whether to release the kernel matrices, T and P after configuration */
+  protected boolean m_Compact = false;
+
+  /** Whether to precompute the dual coefficients for predicting */
+  protected boolean m_DualCoefficients = false;
+
+  /** Dual coefficients U * B_RHS (or Phi^T * U * B_RHS if approximated) */
+  protected Matrix m_Alpha;
+
+  /** Column sums of the dual coefficients */
+  protected double[] m_AlphaSums;
+
+  /** Offsets of the predictions, due to centralizing the test kernel matrix */
+  protected double[] m_AlphaOffsets;
+
+  /** Whether to start from the Y loadings of the previous configuration */
+  protected boolean m_WarmStart = false;
+
+  /** Total number of inner loop iterations of the last configuration */
+  protected int m_NumIterations;
+
   public AbstractKernel getKernel() {
     return m_Kernel;
   }
@@ -98,6 +183,135 @@ public class KernelPLS
     }
   }
 
+  public KernelApproximation getApproximation() {
+    return m_Approximation;
+  }
+
+  public void setApproximation(KernelApproximation approximation) {
+    this.m_Approximation = approximation;
+    reset();
+  }
+
+  public int getNumFeatures() {
+    return m_NumFeatures;
+  }
+
+  public void setNumFeatures(int numFeatures) {
+    if (numFeatures < 1) {
+      getLogger().warning("Number of features must be at least 1 " +
+        "but was " + numFeatures + ".");
+    } else {
+      this.m_NumFeatures = numFeatures;
+      reset();
+    }
+  }
+
+  public LandmarkSelection getLandmarkSelection() {
+    return m_LandmarkSelection;
+  }
+
+  public void setLandmarkSelection(LandmarkSelection landmarkSelection) {
+    this.m_LandmarkSelection = landmarkSelection;
+    reset();
+  }
+
+  public boolean isCompact() {
+    return m_Compact;
+  }
+
+  /**
+   * Set whether to retain only what is required for transforming and
+   * predicting after configuration. The kernel matrices, T and P are then
+   * no longer available.
+   *
+   * @param compact True for compact mode
+   */
+  public void setCompact(boolean compact) {
+    this.m_Compact = compact;
+    reset();
+  }
+
+  public boolean getDualCoefficients() {
+    return m_DualCoefficients;
+  }
+
+  /**
+   * Set whether to precompute the dual coefficients U * B_RHS at
+   * configuration time, reducing predicting to a single product of the test
+   * kernel matrix with the coefficients.
+   *
+   * @param dualCoefficients True to precompute the dual coefficients
+   */
+  public void setDualCoefficients(boolean dualCoefficients) {
+    this.m_DualCoefficients = dualCoefficients;
+    reset();
+  }
+
+  public boolean isWarmStart() {
+    return m_WarmStart;
+  }
+
+  /**
+   * Set whether to start the inner loop of each component from the Y
+   * scores Y*q of the Y loadings q of the previous configuration (if the
+   * number of response columns matches), rather than from random scores.
+   * This reduces the number of iterations when retraining on slightly
+   * changed data. Does not reset the model, as the previous loadings are
+   * required.
+   *
+   * @param warmStart Warm start flag
+   */
+  public void setWarmStart(boolean warmStart) {
+    this.m_WarmStart = warmStart;
+  }
+
+  /**
+   * Get the total number of inner loop iterations of the last configuration.
+   *
+   * @return Number of iterations
+   */
+  public int getNumIterations() {
+    return m_NumIterations;
+  }
+
+  /**
+   * Whether an approximation of the kernel is used.
+   *
+   * @return True if the kernel is approximated
+   */
+  protected boolean isApproximated() {
+    return m_Approximation != KernelApproximation.NONE;
+  }
+
+  /**
+   * Create the map into the approximated feature space.
+   *
+   * @return Feature map
+   */
+  protected UnsupervisedMatrixAlgorithm createFeatureMap() {
+    switch (m_Approximation) {
+      case NYSTROEM:
+	Nystroem nystroem = new Nystroem();
+	nystroem.setKernel(m_Kernel);
+	nystroem.setNumLandmarks(m_NumFeatures);
+	nystroem.setLandmarkSelection(m_LandmarkSelection);
+	nystroem.setSeed(SEED);
+	return nystroem;
+      case RANDOM_FOURIER_FEATURES:
+	if (!(m_Kernel instanceof RBFKernel))
+	  throw new MatrixAlgorithmsException("Random Fourier features require " +
+	    RBFKernel.class.getSimpleName() + ", but kernel is " +
+	    m_Kernel.getClass().getSimpleName());
+	RandomFourierFeatures rff = new RandomFourierFeatures();
+	rff.setGamma(((RBFKernel) m_Kernel).getGamma());
+	rff.setNumFeatures(m_NumFeatures);
+	rff.setSeed(SEED);
+	return rff;
+      default:
+	throw new IllegalStateException("Unhandled kernel approximation: " + m_Approximation);
+    }
+  }
+
   @Override
   protected int getMinColumnsResponse() {
     return 1;
@@ -110,11 +324,21 @@ public class KernelPLS
 
   @Override
   protected void doPLSConfigure(Matrix predictors, Matrix response) {
-    Matrix Y, I, t, u, q, w;
+    Matrix Y, t, u, q, w;
+    Matrix initQ;
 
     getLogger();
+
+    // Keep the Y loadings of the previous configuration for a warm start
+    initQ = null;
+    if (m_WarmStart && m_Q != null && m_Q.numRows() == response.numColumns())
+      initQ = m_Q;
+
     // Init
     int numComponents = getNumComponents();
+    m_CenterX = new Center();
+    m_CenterY = new Center();
+    m_NumIterations = 0;
     m_X = predictors;
     m_X = m_CenterX.configureAndTransform(m_X);
     Y = response;
@@ -126,21 +350,42 @@ public class KernelPLS
     q = MatrixFactory.zeros(numClasses, 1);
     t = MatrixFactory.zeros(numRows, 1);
     w = MatrixFactory.zeros(numRows, 1);
-    I = MatrixFactory.eye(numRows, numRows);
 
     m_T = MatrixFactory.zeros(numRows, numComponents);
     m_U = MatrixFactory.zeros(numRows, numComponents);
     m_P = MatrixFactory.zeros(numRows, numComponents);
     m_Q = MatrixFactory.zeros(numClasses, numComponents);
 
-    m_K_orig = m_Kernel.applyMatrix(m_X);
-    m_K_orig = centralizeTrainInKernelSpace(m_K_orig);
-    m_K_deflated = m_K_orig.copy();
+    if (isApproximated()) {
+      // Map into the approximated feature space, centering the features
+      // corresponds to centralizing the kernel matrix
+      m_FeatureMap = createFeatureMap();
+      m_CenterPhi = new Center();
+      m_Phi_orig = m_CenterPhi.configureAndTransform(m_FeatureMap.configureAndTransform(m_X));
+      m_Phi_deflated = m_Phi_orig.copy();
+    }
+    else {
+      m_K_orig = m_Kernel.applyMatrix(m_X);
+      m_K_orig = centralizeTrainInKernelSpace(m_K_orig);
+      m_K_deflated = m_K_orig.copy();
+
+      // Cache the statistics required for centralizing test kernel matrices
+      m_K_origColMeans = m_K_orig.mean(0).toRawCopy1D();
+      m_K_origMean = 0.0;
+      for (double colMean : m_K_origColMeans)
+	m_K_origMean += colMean / numRows;
+    }
 
     for (int currentComponent = 0; currentComponent < numComponents; currentComponent++) {
       int iterations = 0;
       Matrix uOld;
-      u = MatrixFactory.randn(numRows, 1, SEED + currentComponent);
+      u = null;
+      if (initQ != null && currentComponent < initQ.numColumns()) {
+	u = Y.mul(initQ.getColumn(currentComponent));
+	u = (u.norm2() > 1e-10) ? u.normalized() : null;
+      }
+      if (u == null)
+	u = MatrixFactory.randn(numRows, 1, SEED + currentComponent);
       double iterationChange = m_Tol * 10;
 
       // Repeat 1) - 3) until convergence: either change of u is lower than m_Tol or maximum
@@ -150,7 +395,7 @@ public class KernelPLS
 	  throw new StoppedException();
 
 	// 1)
-	t = m_K_deflated.mul(u).normalized();
+	t = applyDeflatedKernel(u).normalized();
 	w = t.copy();
 
 	// 2)
@@ -165,13 +410,20 @@ public class KernelPLS
 	iterationChange = u.sub(uOld).norm2();
       }
 
-      // Deflate
-      Matrix ttTrans = t.mul(t.transpose());
-      Matrix part = I.sub(ttTrans);
+      m_NumIterations += iterations;
 
-      m_K_deflated = part.mul(m_K_deflated).mul(part);
+      // Deflate
+      Matrix p;
+      if (isApproximated()) {
+	deflateFeatures(m_Phi_deflated, t);
+	p = applyDeflatedKernel(w);
+      }
+      else {
+	deflateKernel(m_K_deflated, t);
+	p = m_K_deflated.transpose().mul(w);
+      }
       Y = Y.sub(t.mul(q.transpose()));
-      Matrix p = m_K_deflated.transpose().mul(w).div(w.transpose().mul(w).asDouble());
+      p = p.div(w.transpose().mul(w).asDouble());
 
       // Store u,t,q,p
       m_T.setColumn(currentComponent, t);
@@ -181,53 +433,221 @@ public class KernelPLS
     }
 
     // Calculate right hand side of the regression matrix B
-    Matrix tTtimesKtimesU = m_T.transpose().mul(m_K_orig).mul(m_U);
-    Matrix inv = tTtimesKtimesU.inverse();
-    m_B_RHS = inv.mul(m_Q.transpose());
+    Matrix tTtimesKtimesU;
+    if (isApproximated()) {
+      m_PhiTransU = m_Phi_orig.transpose().mul(m_U);
+      tTtimesKtimesU = m_T.transpose().mul(m_Phi_orig).mul(m_PhiTransU);
+
+      // Only the feature map is required for transforming/predicting
+      m_Phi_orig = null;
+      m_Phi_deflated = null;
+      m_X = null;
+    }
+    else {
+      tTtimesKtimesU = m_T.transpose().mul(m_K_orig).mul(m_U);
+    }
+    m_B_RHS = tTtimesKtimesU.solve(m_Q.transpose());
+
+    if (m_DualCoefficients)
+      initDualCoefficients();
+
+    if (m_Compact) {
+      m_K_orig = null;
+      m_K_deflated = null;
+      m_T = null;
+      m_P = null;
+    }
+  }
+
+  /**
+   * Precompute the dual coefficients alpha = U * B_RHS. Centralizing the
+   * test kernel matrix K_t then simplifies to:
+   * centralize(K_t) * alpha = K_t * alpha - rowMeans(K_t) * 1^T * alpha + offsets
+   * with offsets_j = sum_k (mean(K_orig) - mean(K_orig_.k)) * alpha_kj.
+   * For approximations, alpha = Phi^T * U * B_RHS are the coefficients in
+   * the approximated feature space.
+   */
+  protected void initDualCoefficients() {
+    if (isApproximated()) {
+      m_Alpha = m_PhiTransU.mul(m_B_RHS);
+      return;
+    }
+
+    m_Alpha = m_U.mul(m_B_RHS);
+    int n = m_Alpha.numRows();
+    int numClasses = m_Alpha.numColumns();
+    m_AlphaSums = new double[numClasses];
+    m_AlphaOffsets = new double[numClasses];
+    for (int j = 0; j < numClasses; j++) {
+      for (int k = 0; k < n; k++) {
+	m_AlphaSums[j] += m_Alpha.get(k, j);
+	m_AlphaOffsets[j] += (m_K_origMean - m_K_origColMeans[k]) * m_Alpha.get(k, j);
+      }
+    }
+  }
+
+  /**
+   * Multiply the deflated kernel matrix with the given vector. For the
+   * approximated feature space Phi, this is computed as Phi * (Phi^T * v)
+   * without forming the kernel matrix.
+   *
+   * @param v Vector
+   * @return K_deflated * v
+   */
+  protected Matrix applyDeflatedKernel(Matrix v) {
+    if (isApproximated())
+      return m_Phi_deflated.mul(m_Phi_deflated.transpose().mul(v));
+    else
+      return m_K_deflated.mul(v);
+  }
+
+  /**
+   * Deflates the calibration data in the approximated feature space in place
+   * via:
+   * Phi <- (I - t * t^T) * Phi = Phi - t * (t^T * Phi)
+   * <br>
+   * This corresponds to deflating the kernel matrix Phi * Phi^T, see
+   * {@link #deflateKernel(Matrix, Matrix)}.
+   *
+   * @param Phi Calibration data in the approximated feature space, gets modified
+   * @param t   Normalized score vector
+   */
+  protected void deflateFeatures(Matrix Phi, Matrix t) {
+    double[] tRaw = t.toRawCopy1D();
+    double[] tPhi = t.transpose().mul(Phi).toRawCopy1D();
+
+    for (int j = 0; j < Phi.numColumns(); j++) {
+      for (int i = 0; i < Phi.numRows(); i++)
+	Phi.set(i, j, Phi.get(i, j) - tRaw[i] * tPhi[j]);
+    }
+  }
+
+  /**
+   * Deflates a symmetric kernel matrix in place via:
+   * K <- (I - t * t^T) * K * (I - t * t^T)
+   * <br>
+   * For a normalized t this equals the rank-1 updates
+   * K - t * (K * t)^T - (K * t) * t^T + (t^T * K * t) * t * t^T,
+   * which only require O(n^2) operations.
+   *
+   * @param K Kernel matrix, gets modified
+   * @param t Normalized score vector
+   */
+  protected void deflateKernel(Matrix K, Matrix t) {
+    int n = K.numRows();
+    double[] tRaw = t.toRawCopy1D();
+    double[] Kt = K.mul(t).toRawCopy1D();
+    double tKt = 0.0;
+    for (int i = 0; i < n; i++)
+      tKt += tRaw[i] * Kt[i];
+
+    for (int j = 0; j < n; j++) {
+      for (int i = 0; i < n; i++) {
+	K.set(i, j, K.get(i, j)
+	  - tRaw[i] * Kt[j]
+	  - Kt[i] * tRaw[j]
+	  + tKt * tRaw[i] * tRaw[j]);
+      }
+    }
   }
 
   /**
    * Centralize a kernel matrix in the kernel space via:
    * K <- (I - 1/n * 1_n * 1_n^T) * K * (I - 1/n * 1_n * 1_n^T)
+   * <br>
+   * This is computed in place via the row/column means of K:
+   * K_ij <- K_ij - mean_i(K_i.) - mean_j(K_.j) + mean(K)
    *
-   * @param K Kernel matrix
+   * @param K Kernel matrix, gets modified
    * @return Centralised kernel matrix
    */
   protected Matrix centralizeTrainInKernelSpace(Matrix K) {
-    int n = m_X.numRows();
-    Matrix I = MatrixFactory.eye(n, n);
-    Matrix one = MatrixFactory.filled(n, 1, 1.0);
+    int n = K.numRows();
+    double[] rowMeans = K.mean(1).toRawCopy1D();
+    double[] colMeans = K.mean(0).toRawCopy1D();
+    double grandMean = 0.0;
+    for (int j = 0; j < n; j++)
+      grandMean += colMeans[j] / n;
+
+    for (int j = 0; j < n; j++) {
+      for (int i = 0; i < n; i++)
+	K.set(i, j, K.get(i, j) - rowMeans[i] - colMeans[j] + grandMean);
+    }
 
-    // Centralize in kernel space
-    Matrix part = I.sub(one.mul(one.transpose()).div(n));
-    return part.mul(K).mul(part);
+    return K;
   }
 
   /**
-   * @param K Kernel matrix
+   * Centralize a test kernel matrix in the kernel space via:
+   * K <- (K - 1/n * 1_nt * 1_n^T * K_orig) * (I - 1/n * 1_n * 1_n^T)
+   * <br>
+   * where K_orig is the centralized training kernel matrix, as in the
+   * original implementation. This is computed in place via the row means of
+   * K and the column means of K_orig cached at configuration time, which
+   * avoids the nt x n and n x n matrices:
+   * K_ij <- K_ij - mean_i(K_i.) - mean_j(K_orig_.j) + mean(K_orig)
+   *
+   * @param K Kernel matrix, gets modified
    * @return Centralised kernel matrix
    */
   protected Matrix centralizeTestInKernelSpace(Matrix K) {
-    int nTrain = m_X.numRows();
+    int nTrain = K.numColumns();
     int nTest = K.numRows();
-    Matrix I = MatrixFactory.eye(nTrain, nTrain);
-    Matrix onesTrainTestScaled = MatrixFactory.filled(nTest, nTrain, 1.0 / nTrain);
+    double[] rowMeans = K.mean(1).toRawCopy1D();
 
-    Matrix onesTrainScaled = MatrixFactory.filled(nTrain, nTrain, 1.0 / nTrain);
-    return (K.sub(onesTrainTestScaled.mul(m_K_orig))).mul(I.sub(onesTrainScaled));
+    for (int j = 0; j < nTrain; j++) {
+      double colOffset = m_K_origMean - m_K_origColMeans[j];
+      for (int i = 0; i < nTest; i++)
+	K.set(i, j, K.get(i, j) - rowMeans[i] + colOffset);
+    }
+
+    return K;
   }
 
   @Override
   protected Matrix doPLSPredict(Matrix predictors) {
-    Matrix K_t = doPLSTransform(predictors);
-    Matrix Y_hat = K_t.mul(m_B_RHS);
+    Matrix Y_hat;
+    if (m_DualCoefficients)
+      Y_hat = predictDual(predictors);
+    else
+      Y_hat = doPLSTransform(predictors).mul(m_B_RHS);
     Y_hat = m_CenterY.inverseTransform(Y_hat);
     return Y_hat;
   }
 
+  /**
+   * Predict the centered response via the precomputed dual coefficients.
+   *
+   * @param predictors Predictors
+   * @return Centered predictions
+   * @see #initDualCoefficients()
+   */
+  protected Matrix predictDual(Matrix predictors) {
+    Matrix predictorsCentered = m_CenterX.transform(predictors);
+    if (isApproximated()) {
+      Matrix Phi = m_CenterPhi.transform(m_FeatureMap.transform(predictorsCentered));
+      return Phi.mul(m_Alpha);
+    }
+
+    Matrix K_t = m_Kernel.applyMatrix(predictorsCentered, m_X);
+    double[] rowMeans = K_t.mean(1).toRawCopy1D();
+    Matrix Y_hat = K_t.mul(m_Alpha);
+    for (int j = 0; j < Y_hat.numColumns(); j++) {
+      for (int i = 0; i < Y_hat.numRows(); i++)
+	Y_hat.set(i, j, Y_hat.get(i, j) - rowMeans[i] * m_AlphaSums[j] + m_AlphaOffsets[j]);
+    }
+
+    return Y_hat;
+  }
+
   @Override
   protected Matrix doPLSTransform(Matrix predictors) {
     Matrix predictorsCentered = m_CenterX.transform(predictors);
+    if (isApproximated()) {
+      Matrix Phi = m_CenterPhi.transform(m_FeatureMap.transform(predictorsCentered));
+      return Phi.mul(m_PhiTransU);
+    }
+
     Matrix K_t = m_Kernel.applyMatrix(predictorsCentered, m_X);
     K_t = centralizeTestInKernelSpace(K_t);
 
@@ -236,6 +656,10 @@ public class KernelPLS
 
   @Override
   public String[] getMatrixNames() {
+    if (m_Compact)
+      return new String[]{"U", "Q"};
+    if (isApproximated())
+      return new String[]{"T", "U", "P", "Q"};
     return new String[]{"K", "T", "U", "P", "Q"};
   }
 
@@ -258,7 +682,7 @@ public class KernelPLS
 
   @Override
   public boolean hasLoadings() {
-    return true;
+    return !m_Compact;
   }
 
   @Override
@@ -266,6 +690,8 @@ public class KernelPLS
     super.doReset();
     m_K_orig = null;
     m_K_deflated = null;
+    m_K_origColMeans = null;
+    m_K_origMean = 0.0;
     m_T = null;
     m_U = null;
     m_P = null;
@@ -274,6 +700,14 @@ public class KernelPLS
     m_X = null;
     m_CenterX = new Center();
     m_CenterY = new Center();
+    m_FeatureMap = null;
+    m_CenterPhi = null;
+    m_Phi_orig = null;
+    m_Phi_deflated = null;
+    m_PhiTransU = null;
+    m_Alpha = null;
+    m_AlphaSums = null;
+    m_AlphaOffsets = null;
   }
 
   @Override
@@ -0,0 +1,288 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MultiTargetWrapper.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.algorithms.Center;
+import com.github.waikatodatamining.matrix.algorithms.Standardize;
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.Utils;
+import com.github.waikatodatamining.matrix.core.algorithm.PredictingSupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.algorithm.UnsupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains a copy of a single-response PLS template for each column of the
+ * response matrix, in parallel.
+ * <br>
+ * The preprocessing of the template (see
+ * {@link AbstractPLS#getPreprocessingType()}) is performed only once by the
+ * wrapper and the preprocessed predictors are shared (read-only) between the
+ * models, which themselves don't perform any preprocessing.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MultiTargetWrapper
+  extends PredictingSupervisedMatrixAlgorithm {
+
+  private static final long serialVersionUID = 5375233380919622744L;
+
+  /** the template for the models. */
+  protected AbstractSingleResponsePLS m_Template = new SIMPLS();
+
+  /** the maximum number of threads, -1 for the number of available processors. */
+  protected int m_NumThreads = -1;
+
+  /** the transformation for the predictors. */
+  protected UnsupervisedMatrixAlgorithm m_TransPredictors;
+
+  /** the transformation for the response. */
+  protected UnsupervisedMatrixAlgorithm m_TransResponse;
+
+  /** the models, one per response column. */
+  protected AbstractSingleResponsePLS[] m_Models;
+
+  /**
+   * Resets the member variables.
+   */
+  @Override
+  protected void doReset() {
+    m_TransPredictors = null;
+    m_TransResponse   = null;
+    m_Models          = null;
+  }
+
+  /**
+   * Sets the template to train for each response column.
+   *
+   * @param value	the template
+   */
+  public void setTemplate(AbstractSingleResponsePLS value) {
+    m_Template = value;
+    reset();
+  }
+
+  /**
+   * Returns the template to train for each response column.
+   *
+   * @return		the template
+   */
+  public AbstractSingleResponsePLS getTemplate() {
+    return m_Template;
+  }
+
+  /**
+   * Sets the maximum number of threads to use for training.
+   *
+   * @param value	the number of threads, -1 for the number of available processors
+   */
+  public void setNumThreads(int value) {
+    if ((value < 1) && (value != -1)) {
+      getLogger().warning("Number of threads must be at least 1 or -1 but was " + value + ".");
+    }
+    else {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of threads to use for training.
+   *
+   * @return		the number of threads, -1 for the number of available processors
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the trained models.
+   *
+   * @return		the models, one per response column, null if not configured
+   */
+  public AbstractSingleResponsePLS[] getModels() {
+    return m_Models;
+  }
+
+  /**
+   * Stops the training of all models.
+   */
+  @Override
+  public void stop() {
+    AbstractSingleResponsePLS[]	models;
+
+    super.stop();
+    models = m_Models;
+    if (models != null) {
+      for (AbstractSingleResponsePLS model : models)
+	model.stop();
+    }
+  }
+
+  @Override
+  protected void doConfigure(Matrix X, Matrix y) {
+    ExecutorService		executor;
+    List<Future<?>>		futures;
+    AbstractSingleResponsePLS[]	models;
+    Matrix			predictors;
+    Matrix			response;
+    int				numThreads;
+    int				j;
+
+    switch (m_Template.getPreprocessingType()) {
+      case CENTER:
+	m_TransPredictors = new Center();
+	m_TransResponse   = new Center();
+	break;
+      case STANDARDIZE:
+	m_TransPredictors = new Standardize();
+	m_TransResponse   = new Standardize();
+	break;
+      case NONE:
+	m_TransPredictors = null;
+	m_TransResponse   = null;
+	break;
+      default:
+	throw new IllegalStateException("Unhandled preprocessing type; " + m_Template.getPreprocessingType());
+    }
+
+    predictors = X;
+    response   = y;
+    if (m_TransPredictors != null)
+      predictors = m_TransPredictors.configureAndTransform(predictors);
+    if (m_TransResponse != null)
+      response = m_TransResponse.configureAndTransform(response);
+
+    models = new AbstractSingleResponsePLS[response.numColumns()];
+    for (j = 0; j < models.length; j++) {
+      models[j] = Utils.deepCopy(m_Template);
+      models[j].setPreprocessingType(PreprocessingType.NONE);
+    }
+    m_Models = models;
+
+    numThreads = (m_NumThreads == -1) ? Runtime.getRuntime().availableProcessors() : m_NumThreads;
+    executor   = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, models.length)));
+    futures    = new ArrayList<>();
+    try {
+      for (j = 0; j < models.length; j++) {
+	final AbstractSingleResponsePLS model = models[j];
+	final Matrix target = response.getColumn(j);
+	final Matrix shared = predictors;
+	futures.add(executor.submit(() -> model.configure(shared, target)));
+      }
+      for (j = 0; j < futures.size(); j++) {
+	try {
+	  futures.get(j).get();
+	}
+	catch (ExecutionException e) {
+	  stop();
+	  if (e.getCause() instanceof RuntimeException)
+	    throw (RuntimeException) e.getCause();
+	  throw new MatrixAlgorithmsException("Failed to train model for response column #" + (j + 1), e.getCause());
+	}
+	catch (InterruptedException e) {
+	  stop();
+	  Thread.currentThread().interrupt();
+	  throw new StoppedException("Interrupted while training models");
+	}
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    if (m_Stopped)
+      throw new StoppedException();
+  }
+
+  /**
+   * Applies the preprocessing of the predictors.
+   *
+   * @param X		the predictors
+   * @return		the preprocessed predictors
+   */
+  protected Matrix preprocess(Matrix X) {
+    if (m_TransPredictors != null)
+      return m_TransPredictors.transform(X);
+    return X;
+  }
+
+  /**
+   * Returns the transformations of all models, concatenated column-wise.
+   *
+   * @param X		the predictors
+   * @return		the transformed data
+   */
+  @Override
+  protected Matrix doTransform(Matrix X) {
+    Matrix[]	transformed;
+    int		j;
+
+    X           = preprocess(X);
+    transformed = new Matrix[m_Models.length];
+    for (j = 0; j < m_Models.length; j++) {
+      if (m_Stopped)
+	throw new StoppedException();
+      transformed[j] = m_Models[j].transform(X);
+    }
+
+    return MatrixHelper.multiConcat(1, transformed);
+  }
+
+  /**
+   * Predicts all response columns.
+   *
+   * @param X		the predictors
+   * @return		the predictions, one column per response column
+   */
+  @Override
+  protected Matrix doPredict(Matrix X) {
+    Matrix	result;
+    int		j;
+
+    X      = preprocess(X);
+    result = MatrixFactory.zeros(X.numRows(), m_Models.length);
+    for (j = 0; j < m_Models.length; j++) {
+      if (m_Stopped)
+	throw new StoppedException();
+      result.setColumn(j, m_Models[j].predict(X));
+    }
+
+    if (m_TransResponse != null)
+      result = m_TransResponse.inverseTransform(result);
+
+    return result;
+  }
+
+  @Override
+  public boolean isNonInvertible() {
+    return true;
+  }
+}
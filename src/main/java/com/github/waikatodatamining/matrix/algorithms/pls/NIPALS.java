@@ -5,6 +5,15 @@ import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.algorithms.Standardize;
 
+import java.util.Arrays;
+
+import static com.github.waikatodatamining.matrix.core.matrix.MatrixHelper.maxColumnNorm2Squared;
+import static com.github.waikatodatamining.matrix.core.matrix.MatrixHelper.mul;
+import static com.github.waikatodatamining.matrix.core.matrix.MatrixHelper.norm2Squared;
+import static com.github.waikatodatamining.matrix.core.matrix.MatrixHelper.scale;
+import static com.github.waikatodatamining.matrix.core.matrix.MatrixHelper.subOuter;
+import static com.github.waikatodatamining.matrix.core.matrix.MatrixHelper.tmul;
+
 /**
  * Nonlinear Iterative Partial Least Squares
  * <p>
@@ -17,6 +26,8 @@ import com.github.waikatodatamining.matrix.algorithms.Standardize;
  * - normYWeights: Flat to normalize Y weights
  * - deflationMode: Mode for Y matrix deflation. Can be either CANONICAL or
  * REGRESSION
+ * - warmStart: Flag to start the inner loop of each component from the Y
+ * weights of the previous configuration
  * @author Steven Lang
  */
 public class NIPALS
@@ -54,6 +65,9 @@ public class NIPALS
   /** Regression coefficients */
   protected Matrix m_Coef;
 
+  /** Regression coefficients for fewer components, indexed by number of components - 1 */
+  protected Matrix[] m_CoefFewer;
+
   /** Inner NIPALS loop improvement tolerance */
   protected double m_Tol = 1e-6;
 
@@ -72,6 +86,12 @@ public class NIPALS
   /** X and Y deflation Mode */
   protected DeflationMode m_deflationMode = DeflationMode.REGRESSION;
 
+  /** Flag to start from the Y weights of the previous configuration */
+  protected boolean m_WarmStart = false;
+
+  /** Total number of inner loop iterations of the last configuration */
+  protected int m_NumIterations;
+
   public boolean isNormYWeights() {
     return m_NormYWeights;
   }
@@ -80,6 +100,32 @@ public class NIPALS
     m_NormYWeights = normYWeights;
   }
 
+  public boolean isWarmStart() {
+    return m_WarmStart;
+  }
+
+  /**
+   * Set whether to start the inner loop of each component from the Y
+   * weights of the previous configuration (if the number of response
+   * columns matches), rather than from the first response column. This
+   * reduces the number of iterations when retraining on slightly changed
+   * data. Does not reset the model, as the previous weights are required.
+   *
+   * @param warmStart Warm start flag
+   */
+  public void setWarmStart(boolean warmStart) {
+    m_WarmStart = warmStart;
+  }
+
+  /**
+   * Get the total number of inner loop iterations of the last configuration.
+   *
+   * @return Number of iterations
+   */
+  public int getNumIterations() {
+    return m_NumIterations;
+  }
+
   public int getMaxIter() {
     return m_MaxIter;
   }
@@ -128,20 +174,28 @@ public class NIPALS
 
   @Override
   protected void doPLSConfigure(Matrix predictors, Matrix response) {
-    Matrix X, Y, xkScore, ykScore, xkLoading, ykLoading, xkWeight, ykWeight;
+    double[][] X, Y;
+    Matrix XSolver, YSolver;
+    Matrix initYWeights;
 
     getLogger();
 
-    // Init
-    X = predictors;
-    X = m_StandardizeX.configureAndTransform(X);
-    Y = response;
-    Y = m_StandardizeY.configureAndTransform(Y);
+    // Keep the Y weights of the previous configuration for a warm start
+    initYWeights = null;
+    if (m_WarmStart && m_YWeights != null && m_YWeights.numRows() == response.numColumns())
+      initYWeights = m_YWeights;
+
+    // Init: the (deflated) data is kept as raw arrays, which get updated in
+    // place, avoiding transposes and temporary matrices in the loops
+    m_StandardizeX = new Standardize();
+    m_StandardizeY = new Standardize();
+    X = m_StandardizeX.configureAndTransform(predictors).toRawCopy2D();
+    Y = m_StandardizeY.configureAndTransform(response).toRawCopy2D();
 
     // Dimensions
-    int numRows = X.numRows();
-    int numFeatures = X.numColumns();
-    int numClasses = Y.numColumns();
+    int numRows = X.length;
+    int numFeatures = predictors.numColumns();
+    int numClasses = response.numColumns();
     int numComponents = getNumComponents();
 
     // Init matrices
@@ -154,61 +208,89 @@ public class NIPALS
     m_XLoadings = MatrixFactory.zeros(numFeatures, numComponents); // P
     m_YLoadings = MatrixFactory.zeros(numClasses, numComponents); // Q
 
-    ykLoading = MatrixFactory.zeros(numClasses, 1);
+    // Work vectors, allocated once per fit
+    NipalsWorkspace ws = new NipalsWorkspace(numRows, numFeatures, numClasses);
+    double[] ykScore = new double[numRows];
+    double[] xkLoading = new double[numFeatures];
+    double[] ykLoading = new double[numClasses];
+    double[] initYWeight = null;
+    m_NumIterations = 0;
 
     double eps = 1e-10;
     for (int k = 0; k < numComponents; k++) {
       if (m_Stopped)
 	throw new StoppedException();
 
-      if (Y.transpose().mul(Y).all(e -> e < eps)) {
+      // All entries of Y'Y are below eps iff all squared column norms are,
+      // since |(Y'Y)_ij| <= sqrt((Y'Y)_ii * (Y'Y)_jj)
+      if (maxColumnNorm2Squared(Y) < eps) {
         getLogger().warning("Y residual constant at iteration " + k);
         break;
       }
 
-      NipalsLoopResult res = nipalsLoop(X, Y);
-      xkWeight = res.xWeights;
-      ykWeight = res.yWeights;
+      if (initYWeights != null && k < initYWeights.numColumns())
+        initYWeight = initYWeights.getColumn(k).toRawCopy1D();
+      else
+        initYWeight = null;
+
+      // The least-squares problems only change with the deflation, hence
+      // the data gets factorised once per component (sklearn uses pinv here,
+      // i.e., the minimum-norm solutions)
+      XSolver = null;
+      YSolver = null;
+      if (getWeightCalculationMode() == WeightCalculationMode.CCA) {
+        XSolver = MatrixFactory.fromRaw(X);
+        YSolver = MatrixFactory.fromRaw(Y);
+      }
 
-      // Calculate latent X and Y scores
-      xkScore = X.mul(xkWeight);
-      ykScore = Y.mul(ykWeight).div(ykWeight.norm2squared());
+      m_NumIterations += nipalsLoop(X, Y, XSolver, YSolver, initYWeight, ws);
+      double[] xkWeight = ws.xWeight;
+      double[] ykWeight = ws.yWeight;
 
+      // Calculate latent X and Y scores
+      double[] xkScore = ws.xScore;
+      mul(X, xkWeight, xkScore);
+      mul(Y, ykWeight, ykScore);
+      scale(ykScore, 1.0 / norm2Squared(ykWeight));
 
-      if (xkScore.norm2squared() < eps) {
+      double xkScoreNorm2Squared = norm2Squared(xkScore);
+      if (xkScoreNorm2Squared < eps) {
         getLogger().warning("X scores are null at component " + k);
-	    break;
+        break;
       }
 
       // Deflate X
-      xkLoading = X.t().mul(xkScore).div(xkScore.norm2squared());
-      X = X.sub(xkScore.mul(xkLoading.t()));
+      tmul(X, xkScore, xkLoading);
+      scale(xkLoading, 1.0 / xkScoreNorm2Squared);
+      subOuter(X, xkScore, xkLoading);
 
       // Deflate Y
       switch (getDeflationMode()) {
 	case CANONICAL:
-	  ykLoading = Y.t().mul(ykScore).div(ykScore.norm2squared());
-	  Y = Y.sub(ykScore.mul(ykLoading.t()));
+	  tmul(Y, ykScore, ykLoading);
+	  scale(ykLoading, 1.0 / norm2Squared(ykScore));
+	  subOuter(Y, ykScore, ykLoading);
 	  break;
 	case REGRESSION:
-	  ykLoading = Y.t().mul(xkScore).div(xkScore.norm2squared());
-	  Y = Y.sub(xkScore.mul(ykLoading.t()));
+	  tmul(Y, xkScore, ykLoading);
+	  scale(ykLoading, 1.0 / xkScoreNorm2Squared);
+	  subOuter(Y, xkScore, ykLoading);
 	  break;
       }
 
       // Store results
-      m_XScores.setColumn(k, xkScore);
-      m_YScores.setColumn(k, ykScore);
-      m_XWeights.setColumn(k, xkWeight);
-      m_YWeights.setColumn(k, ykWeight);
-      m_XLoadings.setColumn(k, xkLoading);
-      m_YLoadings.setColumn(k, ykLoading);
+      m_XScores.setColumn(k, MatrixFactory.fromColumn(xkScore));
+      m_YScores.setColumn(k, MatrixFactory.fromColumn(ykScore));
+      m_XWeights.setColumn(k, MatrixFactory.fromColumn(xkWeight));
+      m_YWeights.setColumn(k, MatrixFactory.fromColumn(ykWeight));
+      m_XLoadings.setColumn(k, MatrixFactory.fromColumn(xkLoading));
+      m_YLoadings.setColumn(k, MatrixFactory.fromColumn(ykLoading));
     }
 
-    m_X = X;
-    m_XRotations = m_XWeights.mul((m_XLoadings.t().mul(m_XWeights)).pseudoInverse());
-    if (Y.numColumns() > 1) {
-      m_YRotations = m_YWeights.mul((m_YLoadings.t().mul(m_YWeights)).pseudoInverse());
+    m_X = MatrixFactory.fromRaw(X);
+    m_XRotations = m_XWeights.mul(m_XLoadings.tmul(m_XWeights).pseudoInverse());
+    if (numClasses > 1) {
+      m_YRotations = m_YWeights.mul(m_YLoadings.tmul(m_YWeights).pseudoInverse());
     }
     else {
       m_YRotations = MatrixFactory.filled(1, 1, 1.0);
@@ -216,26 +298,45 @@ public class NIPALS
 
     // Calculate regression coefficients
     Matrix yStds = MatrixFactory.fromColumn(m_StandardizeY.getStdDevs());
-    m_Coef = m_XRotations.mul(m_YLoadings.t()).scaleByRowVector(yStds);
+    m_Coef = m_XRotations.mult(m_YLoadings).scaleByRowVector(yStds);
+    m_CoefFewer = new Matrix[getNumComponents()];
   }
 
   /**
-   * Perform the inner NIPALS loop
+   * Perform the inner NIPALS loop on the (deflated) data. The resulting
+   * weights and the X scores are stored in the workspace, no other memory
+   * gets allocated (apart from the least-squares solutions in CCA mode).
    *
-   * @param X Predictors Matrix
-   * @param Y Response Matrix
-   * @return NipalsLoopResult
+   * @param X Predictors (n x p)
+   * @param Y Response (n x q)
+   * @param XSolver X for solving the least-squares problems, caching its
+   *                factorisation (CCA mode only, otherwise null)
+   * @param YSolver Y for solving the least-squares problems, caching its
+   *                factorisation (CCA mode only, otherwise null)
+   * @param initYWeight Initial Y weights (warm start), null to start from the
+   *                    first column of Y
+   * @param ws Workspace with the work vectors
+   * @return Number of iterations
    */
-  protected NipalsLoopResult nipalsLoop(Matrix X, Matrix Y) {
+  protected int nipalsLoop(double[][] X, double[][] Y, Matrix XSolver, Matrix YSolver, double[] initYWeight, NipalsWorkspace ws) {
     int iterations = 0;
-
-    Matrix yScore = Y.getColumn(0); // (y scores)
-    Matrix xWeight;
-    Matrix xWeightOld = MatrixFactory.zeros(X.numColumns(), 1);
-    Matrix yWeight;
-    Matrix xScore;
-    Matrix XpInv = null;
-    Matrix YpInv = null;
+    int numClasses = ws.yWeight.length;
+
+    double[] xWeight = ws.xWeight;
+    double[] xWeightOld = ws.xWeightOld;
+    double[] yWeight = ws.yWeight;
+    double[] xScore = ws.xScore;
+    double[] yScore = ws.yScore;
+
+    // y scores
+    for (int i = 0; i < Y.length; i++)
+      yScore[i] = Y[i][0];
+    if (initYWeight != null) {
+      mul(Y, initYWeight, xScore);
+      if (norm2Squared(xScore) > 1e-16)
+        System.arraycopy(xScore, 0, yScore, 0, yScore.length);
+    }
+    Arrays.fill(xWeightOld, 0.0);
 
     double eps = 1e-16;
 
@@ -246,63 +347,63 @@ public class NIPALS
 	throw new StoppedException();
 
       // 1) Update X weights
-      if (getWeightCalculationMode() == WeightCalculationMode.CCA){
-        if (XpInv == null){
-          // sklearn uses pinv here which ojAlgo implicitly does
-          XpInv = X.inverse();
-        }
-        xWeight = XpInv.mul(yScore);
+      if (XSolver != null) {
+        System.arraycopy(XSolver.lstsq(MatrixFactory.fromColumn(yScore)).toRawCopy1D(), 0, xWeight, 0, xWeight.length);
       } else { // PLS
-        xWeight = X.t().mul(yScore).div(yScore.norm2squared());
+        tmul(X, yScore, xWeight);
+        scale(xWeight, 1.0 / norm2Squared(yScore));
       }
 
       // Add eps if necessary to converge to a more acceptable solution
-      if (xWeight.norm2squared() < eps) {
-	    xWeight = xWeight.add(eps);
+      if (norm2Squared(xWeight) < eps) {
+        for (int j = 0; j < xWeight.length; j++)
+          xWeight[j] += eps;
       }
 
       // Normalize
-      xWeight = xWeight.div(Math.sqrt(xWeight.norm2squared()) + eps);
+      scale(xWeight, 1.0 / (Math.sqrt(norm2Squared(xWeight)) + eps));
 
       // 2) Calculate latent X scores
-      xScore = X.mul(xWeight);
+      mul(X, xWeight, xScore);
 
       // 3) Update Y weights
-      if (getWeightCalculationMode() == WeightCalculationMode.CCA){
-        if (YpInv == null){
-          // sklearn uses pinv here which ojAlgo implicitly does
-          YpInv = Y.inverse();
-        }
-        yWeight = YpInv.mul(xScore);
+      if (YSolver != null) {
+        System.arraycopy(YSolver.lstsq(MatrixFactory.fromColumn(xScore)).toRawCopy1D(), 0, yWeight, 0, yWeight.length);
       } else { // PLS
         // WeightCalculationMode A: Regress each Y column on xscore
-        yWeight = Y.t().mul(xScore).div(xScore.norm2squared());
+        tmul(Y, xScore, yWeight);
+        scale(yWeight, 1.0 / norm2Squared(xScore));
       }
 
       // Normalize Y weights
       if (m_NormYWeights) {
-	    yWeight = yWeight.div(Math.sqrt(yWeight.norm2squared()) + eps);
+        scale(yWeight, 1.0 / (Math.sqrt(norm2Squared(yWeight)) + eps));
       }
 
       // 4) Calculate ykScores
-      yScore = Y.mul(yWeight).div(yWeight.norm2squared() + eps);
+      mul(Y, yWeight, yScore);
+      scale(yScore, 1.0 / (norm2Squared(yWeight) + eps));
 
-      Matrix xWeightDiff = xWeight.sub(xWeightOld);
+      double xWeightDiff = 0.0;
+      for (int j = 0; j < xWeight.length; j++) {
+        double d = xWeight[j] - xWeightOld[j];
+        xWeightDiff += d * d;
+      }
 
-      if (xWeightDiff.norm2squared() < m_Tol || Y.numColumns() == 1) {
-	    break;
+      if (xWeightDiff < m_Tol || numClasses == 1) {
+        break;
       }
 
       if (iterations >= m_MaxIter) {
-	    break;
+        break;
       }
 
       // Update stopping conditions
-      xWeightOld = xWeight;
+      System.arraycopy(xWeight, 0, xWeightOld, 0, xWeight.length);
       iterations++;
     }
 
-    return new NipalsLoopResult(xWeight, yWeight, iterations);
+    return iterations;
   }
 
   @Override
@@ -313,6 +414,55 @@ public class NIPALS
     return X.mul(m_Coef).addByVector(yMeans);
   }
 
+  /**
+   * Predicts using only the first components, via the regression
+   * coefficients W_k*(P_k'*W_k)^+*Q_k'. The coefficients get computed on
+   * first use for each number of components and cached until the next
+   * configuration.
+   *
+   * @param predictors Predictors
+   * @param numComponents Number of components to use
+   * @return Predictions
+   */
+  @Override
+  protected Matrix doPLSPredict(Matrix predictors, int numComponents) {
+    if (numComponents == getNumComponents())
+      return doPLSPredict(predictors);
+
+    Matrix X = m_StandardizeX.transform(predictors);
+    Matrix coef = getCoef(numComponents);
+
+    Matrix yMeans = MatrixFactory.fromColumn(m_StandardizeY.getMeans());
+    return X.mul(coef).addByVector(yMeans);
+  }
+
+  /**
+   * Returns the regression coefficients using only the first components,
+   * computing them if not cached yet. Concurrent callers may compute the
+   * same coefficients twice, but always store equal matrices.
+   *
+   * @param numComponents Number of components to use
+   * @return Regression coefficients
+   */
+  protected Matrix getCoef(int numComponents) {
+    Matrix[] cache = m_CoefFewer;
+    Matrix coef = cache[numComponents - 1];
+    if (coef == null) {
+      Matrix W = m_XWeights.getColumns(0, numComponents);
+      Matrix P = m_XLoadings.getColumns(0, numComponents);
+      Matrix Q = m_YLoadings.getColumns(0, numComponents);
+      Matrix yStds = MatrixFactory.fromColumn(m_StandardizeY.getStdDevs());
+      coef = W.mul(P.tmul(W).pseudoInverse()).mult(Q).scaleByRowVector(yStds);
+      cache[numComponents - 1] = coef;
+    }
+    return coef;
+  }
+
+  @Override
+  public boolean canPredictWithFewerComponents() {
+    return true;
+  }
+
   @Override
   protected Matrix doPLSTransform(Matrix predictors) {
     Matrix X = m_StandardizeX.transform(predictors);
@@ -363,6 +513,7 @@ public class NIPALS
     m_XWeights = null;
     m_YWeights = null;
     m_Coef = null;
+    m_CoefFewer = null;
     m_X = null;
     m_XRotations = null;
     m_YRotations = null;
@@ -385,20 +536,31 @@ public class NIPALS
   }
 
   /**
-   * NIPALS loop result: x and y weight matrices and number of iterations.
+   * Work vectors of the inner NIPALS loop, allocated once per fit.
    */
-  private class NipalsLoopResult {
+  protected static class NipalsWorkspace {
+
+    /** X weights (p) */
+    double[] xWeight;
+
+    /** X weights of the previous iteration (p) */
+    double[] xWeightOld;
 
-    Matrix xWeights;
+    /** Y weights (q) */
+    double[] yWeight;
 
-    Matrix yWeights;
+    /** X scores (n) */
+    double[] xScore;
 
-    int iterations;
+    /** Y scores (n) */
+    double[] yScore;
 
-    public NipalsLoopResult(Matrix xWeights, Matrix yWeights, int iterations) {
-      this.xWeights = xWeights;
-      this.yWeights = yWeights;
-      this.iterations = iterations;
+    public NipalsWorkspace(int numRows, int numFeatures, int numClasses) {
+      xWeight = new double[numFeatures];
+      xWeightOld = new double[numFeatures];
+      yWeight = new double[numClasses];
+      xScore = new double[numRows];
+      yScore = new double[numRows];
     }
   }
 
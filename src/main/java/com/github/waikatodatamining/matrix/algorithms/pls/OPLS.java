@@ -136,13 +136,12 @@ public class OPLS
    * @param response   the dependent variable(s)
    */
   protected void doPLSConfigure(Matrix predictors, Matrix response) {
-    Matrix X, Xtrans, y;
+    Matrix X, y;
     Matrix w, wOrth;
     Matrix t, tOrth;
     Matrix p, pOrth;
 
     X = predictors.copy();
-    Xtrans = X.transpose();
     y = response;
 
     // init
@@ -150,7 +149,7 @@ public class OPLS
     m_Porth = MatrixFactory.zeros(predictors.numColumns(), getNumComponents());
     m_Torth = MatrixFactory.zeros(predictors.numRows(), getNumComponents());
 
-    w = Xtrans.mul(y).mul(invL2Squared(y)).normalized();
+    w = X.tmul(y).mul(invL2Squared(y)).normalized();
 
 
     for (int currentComponent = 0; currentComponent < getNumComponents(); currentComponent++) {
@@ -161,17 +160,16 @@ public class OPLS
       t = X.mul(w).mul(invL2Squared(w));
 
       // Calculate loadings of X
-      p = Xtrans.mul(t).mul(invL2Squared(t));
+      p = X.tmul(t).mul(invL2Squared(t));
 
       // Orthogonalize weight
-      wOrth = p.sub(w.mul(w.transpose().mul(p).mul(invL2Squared(w)).asDouble()));
+      wOrth = p.sub(w.mul(w.tmul(p).mul(invL2Squared(w)).asDouble()));
       wOrth = wOrth.normalized();
       tOrth = X.mul(wOrth).mul(invL2Squared(wOrth));
-      pOrth = Xtrans.mul(tOrth).mul(invL2Squared(tOrth));
+      pOrth = X.tmul(tOrth).mul(invL2Squared(tOrth));
 
       // Remove orthogonal components from X
-      X = X.sub(tOrth.mul(pOrth.transpose()));
-      Xtrans = X.transpose();
+      X = X.sub(tOrth.mult(pOrth));
 
       // Store results
       m_Worth.setColumn(currentComponent, wOrth);
@@ -204,7 +202,7 @@ public class OPLS
     // Remove signal from X_test that is orthogonal to y_train
     // X_clean = X_test - X_test*W_orth*P_orth^T
     Matrix T = predictors.mul(m_Worth);
-    Matrix Xorth = T.mul(m_Porth.transpose());
+    Matrix Xorth = T.mult(m_Porth);
     return predictors.sub(Xorth);
   }
 
@@ -162,15 +162,15 @@ public class PLS1
       b_hat.set(k, 0, bk);
 
       // 4. step: pj
-      pk = Xk.transpose().mul(tk).div(tdott);
+      pk = Xk.tmul(tk).div(tdott);
       P.setColumn(k, pk);
 
       // 5. step: Xk+1 (deflating y is not necessary)
-      Xk = Xk.sub(tk.mul(pk.transpose()));
+      Xk = Xk.sub(tk.mult(pk));
     }
 
     // W*(P^T*W)^-1
-    tmp = W.mul(((P.transpose()).mul(W)).inverse());
+    tmp = W.mul(P.tmul(W).inverse());
 
     // factor = W*(P^T*W)^-1 * b_hat
     m_r_hat = tmp.mul(b_hat);
@@ -189,7 +189,7 @@ public class PLS1
    * @return Weights at step k
    */
   protected Matrix calculateWeights(Matrix xk, Matrix y) {
-    return xk.transpose().mul(y).normalized();
+    return xk.tmul(y).normalized();
   }
 
   /**
@@ -240,6 +240,17 @@ public class PLS1
     return true;
   }
 
+  /**
+   * Returns whether the algorithm can make predictions with fewer components
+   * than configured.
+   *
+   * @return		true if supported
+   */
+  @Override
+  public boolean canPredictWithFewerComponents() {
+    return true;
+  }
+
   /**
    * Performs predictions on the data.
    *
@@ -248,20 +259,34 @@ public class PLS1
    */
   @Override
   protected Matrix doPLSPredict(Matrix predictors) {
+    return doPLSPredict(predictors, getNumComponents());
+  }
+
+  /**
+   * Performs predictions on the data, using only the first components.
+   *
+   * @param predictors the input data
+   * @param numComponents the number of components to use
+   * @return the predictions
+   */
+  @Override
+  protected Matrix doPLSPredict(Matrix predictors, int numComponents) {
     Matrix 	result;
+    Matrix 	b_hat;
     Matrix 	T, t;
     Matrix 	x, X;
     int 	i, j;
 
     result = MatrixFactory.zeros(predictors.numRows(), 1);
+    b_hat  = (numComponents == getNumComponents()) ? m_b_hat : m_b_hat.getRows(0, numComponents);
 
     for (i = 0; i < predictors.numRows(); i++) {
       // work on each row
       x = MatrixHelper.rowAsVector(predictors, i);
-      X = MatrixFactory.zeros(1, getNumComponents());
-      T = MatrixFactory.zeros(1, getNumComponents());
+      X = MatrixFactory.zeros(1, numComponents);
+      T = MatrixFactory.zeros(1, numComponents);
 
-      for (j = 0; j < getNumComponents(); j++) {
+      for (j = 0; j < numComponents; j++) {
 	if (m_Stopped)
 	  throw new StoppedException();
 
@@ -273,7 +298,7 @@ public class PLS1
 	x = x.sub(m_P.getColumn(j).transpose().mul(t.asDouble()));
       }
 
-      result.set(i, 0, T.mul(m_b_hat).asDouble());
+      result.set(i, 0, T.mul(b_hat).asDouble());
     }
 
     return result;
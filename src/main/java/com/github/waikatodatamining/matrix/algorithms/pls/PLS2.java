@@ -0,0 +1,261 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PLS2.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.algorithm.MatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+
+/**
+ * PLS2, i.e., PLS for multiple response variables, using the SIMPLS
+ * algorithm. All responses are modelled by a single set of components, so
+ * X^T*X and the deflation are only computed once, rather than once per
+ * response as with separate single-response models.
+ * <br>
+ * For a single response, this is equivalent to {@link SIMPLS}, whose
+ * implementation of the algorithm gets used.
+ * <br>
+ * See here:
+ * <a href="https://doi.org/10.1016/0169-7439(93)85002-X">SIMPLS: An alternative approach to partial least squares regression</a>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PLS2
+  extends AbstractMultiResponsePLS {
+
+  private static final long serialVersionUID = -4622542713815587384L;
+
+  /** the W matrix */
+  protected Matrix m_W;
+
+  /** the B matrix (used for prediction) */
+  protected Matrix m_B;
+
+  /** Q matrix to regress T (XW) on Y */
+  protected Matrix m_Q;
+
+  /**
+   * Resets the member variables.
+   */
+  @Override
+  protected void doReset() {
+    super.doReset();
+
+    m_W = null;
+    m_B = null;
+    m_Q = null;
+  }
+
+  /**
+   * Returns the minimum number of columns the response matrix has to have.
+   *
+   * @return		the minimum
+   */
+  @Override
+  protected int getMinColumnsResponse() {
+    return 1;
+  }
+
+  /**
+   * Returns the maximum number of columns the response matrix has to have.
+   *
+   * @return		the maximum, -1 for unlimited
+   */
+  @Override
+  protected int getMaxColumnsResponse() {
+    return -1;
+  }
+
+  /**
+   * Returns the all the available matrices.
+   *
+   * @return		the names of the matrices
+   */
+  @Override
+  public String[] getMatrixNames() {
+    return new String[]{
+      "W",
+      "B",
+      "Q"
+    };
+  }
+
+  /**
+   * Returns the matrix with the specified name.
+   *
+   * @param name	the name of the matrix
+   * @return		the matrix, null if not available
+   */
+  @Override
+  public Matrix getMatrix(String name) {
+    switch (name) {
+      case "W":
+	return m_W;
+      case "B":
+	return m_B;
+      case "Q":
+	return m_Q;
+      default:
+	return null;
+    }
+  }
+
+  /**
+   * Whether the algorithm supports return of loadings.
+   *
+   * @return		true if supported
+   * @see		#getLoadings()
+   */
+  public boolean hasLoadings() {
+    return true;
+  }
+
+  /**
+   * Returns the loadings, if available.
+   *
+   * @return		the loadings, null if not available
+   */
+  public Matrix getLoadings() {
+    return getMatrix("W");
+  }
+
+  /**
+   * Initializes using the provided data.
+   *
+   * @param predictors the input data
+   * @param response   the dependent variable(s)
+   */
+  @Override
+  protected void doPLSConfigure(Matrix predictors, Matrix response) {
+    doPLSConfigureFromCrossProducts(predictors.gram(), predictors.tmul(response));
+  }
+
+  /**
+   * Initializes using the accumulated cross-products of the data, which
+   * allows training on more rows than fit into memory. Predictors and
+   * response get preprocessed according to the preprocessing type, using
+   * the column statistics of the accumulator.
+   *
+   * @param crossProducts	the accumulated data
+   * @see			CrossProductsAccumulator
+   */
+  public void configureFromCrossProducts(CrossProductsAccumulator crossProducts) {
+    configureFromCrossProducts(
+      crossProducts.getXtX(m_PreprocessingType),
+      crossProducts.getXty(m_PreprocessingType),
+      crossProducts.getPredictorMeans(),
+      crossProducts.getPredictorStdDevs(),
+      crossProducts.getResponseMeans(),
+      crossProducts.getResponseStdDevs());
+  }
+
+  /**
+   * Initializes using the cross-products of the preprocessed data.
+   *
+   * @param XtX		X^T*X of the preprocessed predictors
+   * @param XtY		X^T*Y of the preprocessed predictors and response
+   * @param meansX	the column means of the predictors
+   * @param stdDevsX	the column standard deviations of the predictors, only required for standardizing
+   * @param meansY	the column means of the response
+   * @param stdDevsY	the column standard deviations of the response, only required for standardizing
+   */
+  public void configureFromCrossProducts(Matrix XtX, Matrix XtY, double[] meansX, double[] stdDevsX, double[] meansY, double[] stdDevsY) {
+    SIMPLS.checkCrossProducts(XtX, XtY);
+
+    reset();
+    configurePreprocessing(meansX, stdDevsX, meansY, stdDevsY);
+    doPLSConfigureFromCrossProducts(XtX, XtY);
+    setConfigured();
+  }
+
+  /**
+   * Initializes using the cross-products of the preprocessed data.
+   *
+   * @param XtX		X^T*X of the preprocessed predictors
+   * @param XtY		X^T*Y of the preprocessed predictors and response
+   * @see		SIMPLS#simpls(MatrixAlgorithm, Matrix, Matrix, int)
+   */
+  protected void doPLSConfigureFromCrossProducts(Matrix XtX, Matrix XtY) {
+    Matrix[]	WQ;
+
+    WQ = SIMPLS.simpls(this, XtX, XtY, getNumComponents());
+    m_W = WQ[0];
+    m_B = WQ[0].mult(WQ[1]);
+    m_Q = WQ[1];
+  }
+
+  /**
+   * Transforms the data.
+   *
+   * @param predictors the input data
+   * @return the transformed data
+   */
+  @Override
+  protected Matrix doPLSTransform(Matrix predictors) {
+    return predictors.mul(m_W);
+  }
+
+  /**
+   * Returns whether the algorithm can make predictions.
+   *
+   * @return		true if can make predictions
+   */
+  public boolean canPredict() {
+    return true;
+  }
+
+  /**
+   * Performs predictions on the data.
+   *
+   * @param predictors the input data
+   * @return the predictions
+   */
+  @Override
+  protected Matrix doPLSPredict(Matrix predictors) {
+    return predictors.mul(m_B);
+  }
+
+  /**
+   * Performs predictions on the data, using only the first components,
+   * i.e., via B = W_k*Q_k'.
+   *
+   * @param predictors the input data
+   * @param numComponents the number of components to use
+   * @return the predictions
+   */
+  @Override
+  protected Matrix doPLSPredict(Matrix predictors, int numComponents) {
+    if (numComponents == getNumComponents())
+      return doPLSPredict(predictors);
+
+    return SIMPLS.predict(predictors, m_W, m_Q, numComponents);
+  }
+
+  /**
+   * Returns whether the algorithm can make predictions with fewer components
+   * than configured.
+   *
+   * @return		true if supported
+   */
+  @Override
+  public boolean canPredictWithFewerComponents() {
+    return true;
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PLSCrossValidation.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.LoggingObject;
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.Utils;
+import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.validation.KFoldSplitter;
+import com.github.waikatodatamining.matrix.validation.Split;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cross-validates the number of components of a PLS algorithm. Per fold,
+ * only a single model with the maximum number of components is configured,
+ * the predictions for fewer components are derived from it (see
+ * {@link AbstractPLS#predict(Matrix, int)}). The folds are evaluated in
+ * parallel.
+ * <br>
+ * The rows are split into folds via {@link KFoldSplitter}.
+ * <br>
+ * The result is the root mean squared error of the cross-validation
+ * (RMSECV) for each number of components, averaged over all response
+ * columns.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PLSCrossValidation
+  extends LoggingObject {
+
+  private static final long serialVersionUID = -6012389917244419513L;
+
+  /** the template of the algorithm to evaluate. */
+  protected AbstractPLS m_Template = new SIMPLS();
+
+  /** the maximum number of components. */
+  protected int m_MaxComponents = 10;
+
+  /** the number of folds. */
+  protected int m_NumFolds = 10;
+
+  /** the seed for randomizing the rows. */
+  protected long m_Seed = 1;
+
+  /** the maximum number of threads, -1 for the number of available processors. */
+  protected int m_NumThreads = -1;
+
+  /** the models currently being configured. */
+  protected AbstractPLS[] m_Models;
+
+  /** whether the cross-validation was stopped. */
+  protected boolean m_Stopped;
+
+  /** the RMSECV per number of components (index 0 = 1 component). */
+  protected double[] m_RMSECV;
+
+  /**
+   * Sets the template of the algorithm to evaluate.
+   *
+   * @param value	the template
+   */
+  public void setTemplate(AbstractPLS value) {
+    m_Template = value;
+  }
+
+  /**
+   * Returns the template of the algorithm to evaluate.
+   *
+   * @return		the template
+   */
+  public AbstractPLS getTemplate() {
+    return m_Template;
+  }
+
+  /**
+   * Sets the maximum number of components to evaluate.
+   *
+   * @param value	the maximum
+   */
+  public void setMaxComponents(int value) {
+    if (value < 1)
+      getLogger().warning("Maximum number of components must be at least 1 but was " + value + ".");
+    else
+      m_MaxComponents = value;
+  }
+
+  /**
+   * Returns the maximum number of components to evaluate.
+   *
+   * @return		the maximum
+   */
+  public int getMaxComponents() {
+    return m_MaxComponents;
+  }
+
+  /**
+   * Sets the number of folds.
+   *
+   * @param value	the number of folds
+   */
+  public void setNumFolds(int value) {
+    if (value < 2)
+      getLogger().warning("Number of folds must be at least 2 but was " + value + ".");
+    else
+      m_NumFolds = value;
+  }
+
+  /**
+   * Returns the number of folds.
+   *
+   * @return		the number of folds
+   */
+  public int getNumFolds() {
+    return m_NumFolds;
+  }
+
+  /**
+   * Sets the seed for randomizing the rows before splitting them into folds.
+   *
+   * @param value	the seed
+   */
+  public void setSeed(long value) {
+    m_Seed = value;
+  }
+
+  /**
+   * Returns the seed for randomizing the rows before splitting them into folds.
+   *
+   * @return		the seed
+   */
+  public long getSeed() {
+    return m_Seed;
+  }
+
+  /**
+   * Sets the maximum number of threads to use.
+   *
+   * @param value	the number of threads, -1 for the number of available processors
+   */
+  public void setNumThreads(int value) {
+    if ((value < 1) && (value != -1))
+      getLogger().warning("Number of threads must be at least 1 or -1 but was " + value + ".");
+    else
+      m_NumThreads = value;
+  }
+
+  /**
+   * Returns the maximum number of threads to use.
+   *
+   * @return		the number of threads, -1 for the number of available processors
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Stops the cross-validation.
+   */
+  public void stop() {
+    AbstractPLS[]	models;
+
+    m_Stopped = true;
+    models    = m_Models;
+    if (models != null) {
+      for (AbstractPLS model : models) {
+	if (model != null)
+	  model.stop();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the cross-validation was stopped.
+   *
+   * @return		true if stopped
+   */
+  public boolean isStopped() {
+    return m_Stopped;
+  }
+
+  /**
+   * Configures a model on all but the fold and computes the sum of squared
+   * errors on the fold for each number of components.
+   *
+   * @param model	the model to configure
+   * @param X		the predictors
+   * @param y		the response
+   * @param split	the split to evaluate
+   * @return		the sum of squared errors per number of components
+   */
+  protected double[] evaluateFold(AbstractPLS model, Matrix X, Matrix y, Split split) {
+    double[]	result;
+    Matrix	XTest;
+    Matrix	yTest;
+    Matrix	predictions;
+    double	diff;
+    int		k;
+    int		i;
+    int		j;
+
+    model.configure(split.getTrain(X), split.getTrain(y));
+
+    result = new double[m_MaxComponents];
+    XTest  = split.getTest(X);
+    yTest  = split.getTest(y);
+    for (k = 1; k <= m_MaxComponents; k++) {
+      if (m_Stopped)
+	throw new StoppedException();
+      predictions = model.predict(XTest, k);
+      for (j = 0; j < yTest.numColumns(); j++) {
+	for (i = 0; i < yTest.numRows(); i++) {
+	  diff = predictions.get(i, j) - yTest.get(i, j);
+	  result[k - 1] += diff * diff;
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Cross-validates the template on the data.
+   *
+   * @param X		the predictors
+   * @param y		the response
+   * @return		the RMSECV per number of components (index 0 = 1 component)
+   */
+  public double[] crossValidate(Matrix X, Matrix y) {
+    ExecutorService		executor;
+    List<Future<double[]>>	futures;
+    AbstractPLS[]		models;
+    double[]			sse;
+    double[]			foldSSE;
+    KFoldSplitter		splitter;
+    List<Split>			splits;
+    int				numFolds;
+    int				numThreads;
+    int				fold;
+    int				k;
+
+    if (X.numRows() != y.numRows())
+      throw new InvalidShapeException("Predictors and response differ in number of rows", X, y);
+    if (!m_Template.canPredictWithFewerComponents())
+      throw new MatrixAlgorithmsException(m_Template.getClass().getSimpleName() + " can't predict with fewer components");
+
+    m_Stopped = false;
+    m_RMSECV  = null;
+    splitter  = new KFoldSplitter();
+    splitter.setNumFolds(m_NumFolds);
+    splitter.setSeed(m_Seed);
+    splits    = splitter.split(X.numRows());
+    numFolds  = splits.size();
+    models    = new AbstractPLS[numFolds];
+    for (fold = 0; fold < numFolds; fold++) {
+      models[fold] = Utils.deepCopy(m_Template);
+      models[fold].setNumComponents(m_MaxComponents);
+    }
+    m_Models = models;
+
+    sse        = new double[m_MaxComponents];
+    numThreads = (m_NumThreads == -1) ? Runtime.getRuntime().availableProcessors() : m_NumThreads;
+    executor   = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, numFolds)));
+    futures    = new ArrayList<>();
+    try {
+      for (fold = 0; fold < numFolds; fold++) {
+	final AbstractPLS model = models[fold];
+	final Split split = splits.get(fold);
+	futures.add(executor.submit(() -> evaluateFold(model, X, y, split)));
+      }
+      for (fold = 0; fold < numFolds; fold++) {
+	try {
+	  foldSSE = futures.get(fold).get();
+	}
+	catch (ExecutionException e) {
+	  stop();
+	  if (e.getCause() instanceof RuntimeException)
+	    throw (RuntimeException) e.getCause();
+	  throw new MatrixAlgorithmsException("Failed to evaluate fold #" + (fold + 1), e.getCause());
+	}
+	catch (InterruptedException e) {
+	  stop();
+	  Thread.currentThread().interrupt();
+	  throw new StoppedException("Interrupted while evaluating folds");
+	}
+	for (k = 0; k < m_MaxComponents; k++)
+	  sse[k] += foldSSE[k];
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      m_Models = null;
+    }
+
+    if (m_Stopped)
+      throw new StoppedException();
+
+    m_RMSECV = new double[m_MaxComponents];
+    for (k = 0; k < m_MaxComponents; k++)
+      m_RMSECV[k] = Math.sqrt(sse[k] / ((double) X.numRows() * y.numColumns()));
+
+    if (getDebug())
+      getLogger().info("RMSECV: " + Utils.arrayToString(m_RMSECV));
+
+    return m_RMSECV;
+  }
+
+  /**
+   * Returns the RMSECV per number of components of the last
+   * cross-validation.
+   *
+   * @return		the RMSECV (index 0 = 1 component), null if not available
+   */
+  public double[] getRMSECV() {
+    return m_RMSECV;
+  }
+
+  /**
+   * Returns the number of components with the lowest RMSECV of the last
+   * cross-validation.
+   *
+   * @return		the number of components, -1 if not available
+   */
+  public int getBestNumComponents() {
+    int		result;
+    int		k;
+
+    if (m_RMSECV == null)
+      return -1;
+
+    result = 1;
+    for (k = 2; k <= m_RMSECV.length; k++) {
+      if (m_RMSECV[k - 1] < m_RMSECV[result - 1])
+	result = k;
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,457 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PLSLeaveOneOut.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.LoggingObject;
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.Utils;
+import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Leave-one-out evaluation of (multi-response) SIMPLS, without refitting the
+ * model on the raw data for each left-out sample. The cross-products
+ * [X Y]^T*[X Y] of the centered data are computed once and downdated by the
+ * left-out sample, which takes O(d^2) for d = predictors + responses,
+ * including the corrections of means and standard deviations. The model is
+ * then configured from the downdated cross-products (see
+ * {@link PLS2#configureFromCrossProducts(Matrix, Matrix, double[], double[], double[], double[])}),
+ * which no longer depends on the number of samples. The samples are
+ * evaluated in parallel.
+ * <br>
+ * The result are the residuals of each left-out sample and the PRESS
+ * (predicted residual error sum of squares) for each number of components.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PLSLeaveOneOut
+  extends LoggingObject {
+
+  private static final long serialVersionUID = 3411574406916850046L;
+
+  /** the maximum number of components. */
+  protected int m_MaxComponents = 10;
+
+  /** the preprocessing type. */
+  protected PreprocessingType m_PreprocessingType = PreprocessingType.CENTER;
+
+  /** the maximum number of threads, -1 for the number of available processors. */
+  protected int m_NumThreads = -1;
+
+  /** whether the evaluation was stopped. */
+  protected boolean m_Stopped;
+
+  /** the models currently being configured, one per task. */
+  protected PLS2[] m_Models;
+
+  /** the residuals per number of components (index 0 = 1 component), n x m each. */
+  protected Matrix[] m_Residuals;
+
+  /** the PRESS per number of components (index 0 = 1 component). */
+  protected double[] m_PRESS;
+
+  /**
+   * Sets the maximum number of components to evaluate.
+   *
+   * @param value	the maximum
+   */
+  public void setMaxComponents(int value) {
+    if (value < 1)
+      getLogger().warning("Maximum number of components must be at least 1 but was " + value + ".");
+    else
+      m_MaxComponents = value;
+  }
+
+  /**
+   * Returns the maximum number of components to evaluate.
+   *
+   * @return		the maximum
+   */
+  public int getMaxComponents() {
+    return m_MaxComponents;
+  }
+
+  /**
+   * Sets the preprocessing type.
+   *
+   * @param value	the type
+   */
+  public void setPreprocessingType(PreprocessingType value) {
+    m_PreprocessingType = value;
+  }
+
+  /**
+   * Returns the preprocessing type.
+   *
+   * @return		the type
+   */
+  public PreprocessingType getPreprocessingType() {
+    return m_PreprocessingType;
+  }
+
+  /**
+   * Sets the maximum number of threads to use.
+   *
+   * @param value	the number of threads, -1 for the number of available processors
+   */
+  public void setNumThreads(int value) {
+    if ((value < 1) && (value != -1))
+      getLogger().warning("Number of threads must be at least 1 or -1 but was " + value + ".");
+    else
+      m_NumThreads = value;
+  }
+
+  /**
+   * Returns the maximum number of threads to use.
+   *
+   * @return		the number of threads, -1 for the number of available processors
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Stops the evaluation.
+   */
+  public void stop() {
+    PLS2[]	models;
+
+    m_Stopped = true;
+    models    = m_Models;
+    if (models != null) {
+      for (PLS2 model : models) {
+	if (model != null)
+	  model.stop();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the evaluation was stopped.
+   *
+   * @return		true if stopped
+   */
+  public boolean isStopped() {
+    return m_Stopped;
+  }
+
+  /**
+   * Returns the cross-products of the data, centered on the column means
+   * if necessary.
+   *
+   * @param Z		the combined predictors and response
+   * @param means	the column means, null if not centering
+   * @return		the cross-products
+   */
+  protected double[][] crossProducts(Matrix Z, double[] means) {
+    Matrix	centered;
+    int		i;
+    int		j;
+
+    centered = Z;
+    if (means != null) {
+      centered = Z.copy();
+      for (i = 0; i < Z.numRows(); i++) {
+	for (j = 0; j < Z.numColumns(); j++)
+	  centered.set(i, j, Z.get(i, j) - means[j]);
+      }
+    }
+
+    return centered.gram().toRawCopy2D();
+  }
+
+  /**
+   * Downdates the cross-products by the sample, i.e., removes its
+   * contribution. When centering, the cross-products are about the means
+   * of the remaining samples: C' = C - n/(n-1)*d*d^T, with d the centered
+   * sample.
+   *
+   * @param C		the cross-products of all samples
+   * @param z		the sample (centered if centering)
+   * @param n		the number of samples (including the left-out one)
+   * @param center	whether the cross-products are centered
+   * @return		the downdated cross-products
+   */
+  protected double[][] downdate(double[][] C, double[] z, int n, boolean center) {
+    double[][]	result;
+    double	factor;
+    int		d;
+    int		i;
+    int		j;
+
+    d      = z.length;
+    factor = center ? (double) n / (n - 1) : 1.0;
+    result = new double[d][d];
+    for (i = 0; i < d; i++) {
+      for (j = 0; j < d; j++)
+	result[i][j] = C[i][j] - factor * z[i] * z[j];
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a block of the cross-products as matrix.
+   *
+   * @param C		the cross-products
+   * @param rowStart	the first row
+   * @param numRows	the number of rows
+   * @param colStart	the first column
+   * @param numCols	the number of columns
+   * @return		the block
+   */
+  protected Matrix block(double[][] C, int rowStart, int numRows, int colStart, int numCols) {
+    double[][]	result;
+    int		i;
+
+    result = new double[numRows][numCols];
+    for (i = 0; i < numRows; i++)
+      System.arraycopy(C[rowStart + i], colStart, result[i], 0, numCols);
+
+    return MatrixFactory.fromRaw(result);
+  }
+
+  /**
+   * Evaluates the left-out sample.
+   *
+   * @param model	the model to configure
+   * @param X		the predictors
+   * @param Y		the response
+   * @param C		the cross-products of all samples
+   * @param means	the column means of all samples, null if not centering
+   * @param sample	the row of the left-out sample
+   * @param residuals	the residuals to fill in, per number of components
+   * @param offset	the position of the sample's m residuals in the arrays
+   */
+  protected void evaluateSample(PLS2 model, Matrix X, Matrix Y, double[][] C, double[] means, int sample, double[][] residuals, int offset) {
+    double[][]	downdated;
+    double[]	z;
+    double[]	meansNew;
+    double[]	stdDevs;
+    double	scale;
+    Matrix	x;
+    Matrix	predictions;
+    int		n;
+    int		p;
+    int		m;
+    int		d;
+    int		i;
+    int		j;
+    int		k;
+
+    n = X.numRows();
+    p = X.numColumns();
+    m = Y.numColumns();
+    d = p + m;
+
+    z = new double[d];
+    for (j = 0; j < p; j++)
+      z[j] = X.get(sample, j);
+    for (j = 0; j < m; j++)
+      z[p + j] = Y.get(sample, j);
+
+    meansNew = new double[d];
+    stdDevs  = new double[d];
+    if (means != null) {
+      for (j = 0; j < d; j++) {
+	z[j]        -= means[j];
+	meansNew[j]  = means[j] - z[j] / (n - 1);
+      }
+    }
+    downdated = downdate(C, z, n, means != null);
+
+    // zero standard deviations are not scaled, see Utils.normalise
+    if (m_PreprocessingType == PreprocessingType.STANDARDIZE) {
+      for (j = 0; j < d; j++)
+	stdDevs[j] = Math.sqrt(Math.max(0.0, downdated[j][j] / (n - 2)));
+      for (i = 0; i < d; i++) {
+	for (j = 0; j < d; j++) {
+	  scale = (stdDevs[i] == 0.0 ? 1.0 : stdDevs[i]) * (stdDevs[j] == 0.0 ? 1.0 : stdDevs[j]);
+	  downdated[i][j] /= scale;
+	}
+      }
+    }
+
+    model.configureFromCrossProducts(
+      block(downdated, 0, p, 0, p),
+      block(downdated, 0, p, p, m),
+      Arrays.copyOfRange(meansNew, 0, p),
+      Arrays.copyOfRange(stdDevs, 0, p),
+      Arrays.copyOfRange(meansNew, p, d),
+      Arrays.copyOfRange(stdDevs, p, d));
+
+    x = X.getRow(sample);
+    for (k = 1; k <= m_MaxComponents; k++) {
+      predictions = model.predict(x, k);
+      for (j = 0; j < m; j++)
+	residuals[k - 1][offset + j] = Y.get(sample, j) - predictions.get(0, j);
+    }
+  }
+
+  /**
+   * Performs the leave-one-out evaluation.
+   *
+   * @param X		the predictors
+   * @param Y		the response
+   * @return		the PRESS per number of components (index 0 = 1 component)
+   */
+  public double[] evaluate(Matrix X, Matrix Y) {
+    ExecutorService		executor;
+    List<Future<double[][]>>	futures;
+    PLS2[]			models;
+    double[][]			residuals;
+    double[][]			local;
+    Matrix			Z;
+    double[][]			C;
+    double[]			means;
+    boolean			center;
+    int				numThreads;
+    int				n;
+    int				m;
+    int				t;
+    int				i;
+    int				j;
+    int				k;
+
+    if (X.numRows() != Y.numRows())
+      throw new InvalidShapeException("Predictors and response differ in number of rows", X, Y);
+    n      = X.numRows();
+    center = (m_PreprocessingType != PreprocessingType.NONE);
+    if (n < (m_PreprocessingType == PreprocessingType.STANDARDIZE ? 3 : 2))
+      throw new MatrixAlgorithmsException("Not enough samples for leave-one-out: " + n);
+
+    m_Stopped   = false;
+    m_Residuals = null;
+    m_PRESS     = null;
+
+    Z     = X.concat(Y, 1);
+    means = center ? Z.mean(0).toRawCopy1D() : null;
+    C     = crossProducts(Z, means);
+
+    // each task evaluates every numThreads-th sample with its own model and
+    // collects the residuals of its samples in its own arrays (row-major)
+    m          = Y.numColumns();
+    numThreads = (m_NumThreads == -1) ? Runtime.getRuntime().availableProcessors() : m_NumThreads;
+    numThreads = Math.max(1, Math.min(numThreads, n));
+    models     = new PLS2[numThreads];
+    for (t = 0; t < numThreads; t++) {
+      models[t] = new PLS2();
+      models[t].setNumComponents(m_MaxComponents);
+      models[t].setPreprocessingType(m_PreprocessingType);
+    }
+    m_Models = models;
+
+    residuals = new double[m_MaxComponents][n * m];
+    executor  = Executors.newFixedThreadPool(numThreads);
+    futures   = new ArrayList<>();
+    try {
+      for (t = 0; t < numThreads; t++) {
+	final PLS2 model = models[t];
+	final int first = t;
+	final int step = numThreads;
+	futures.add(executor.submit(() -> {
+	  double[][] result = new double[m_MaxComponents][((n - first + step - 1) / step) * m];
+	  for (int s = first, pos = 0; s < n; s += step, pos += m) {
+	    if (m_Stopped)
+	      throw new StoppedException();
+	    evaluateSample(model, X, Y, C, means, s, result, pos);
+	  }
+	  return result;
+	}));
+      }
+      // transpose into column-major order for the residual matrices
+      for (t = 0; t < futures.size(); t++) {
+	try {
+	  local = futures.get(t).get();
+	  for (k = 0; k < m_MaxComponents; k++) {
+	    for (i = t; i < n; i += numThreads) {
+	      for (j = 0; j < m; j++)
+		residuals[k][i + j * n] = local[k][(i / numThreads) * m + j];
+	    }
+	  }
+	}
+	catch (ExecutionException e) {
+	  stop();
+	  if (e.getCause() instanceof RuntimeException)
+	    throw (RuntimeException) e.getCause();
+	  throw new MatrixAlgorithmsException("Failed to evaluate samples", e.getCause());
+	}
+	catch (InterruptedException e) {
+	  stop();
+	  Thread.currentThread().interrupt();
+	  throw new StoppedException("Interrupted while evaluating samples");
+	}
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      m_Models = null;
+    }
+
+    if (m_Stopped)
+      throw new StoppedException();
+
+    m_Residuals = new Matrix[m_MaxComponents];
+    m_PRESS     = new double[m_MaxComponents];
+    for (k = 0; k < m_MaxComponents; k++) {
+      m_Residuals[k] = MatrixFactory.fromColumnMajor(residuals[k], n);
+      m_PRESS[k]     = m_Residuals[k].norm2squared();
+    }
+
+    if (getDebug())
+      getLogger().info("PRESS: " + Utils.arrayToString(m_PRESS));
+
+    return m_PRESS;
+  }
+
+  /**
+   * Returns the residuals of the left-out samples of the last evaluation.
+   *
+   * @param numComponents	the number of components
+   * @return			the residuals (n x responses), null if not available
+   */
+  public Matrix getResiduals(int numComponents) {
+    if (m_Residuals == null)
+      return null;
+    if ((numComponents < 1) || (numComponents > m_Residuals.length))
+      throw new MatrixAlgorithmsException("Number of components must be between 1 and " + m_Residuals.length + " but was " + numComponents);
+    return m_Residuals[numComponents - 1];
+  }
+
+  /**
+   * Returns the PRESS per number of components of the last evaluation.
+   *
+   * @return		the PRESS (index 0 = 1 component), null if not available
+   */
+  public double[] getPRESS() {
+    return m_PRESS;
+  }
+}
@@ -4,6 +4,8 @@ import com.github.waikatodatamining.matrix.core.StoppedException;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 
+import java.util.Arrays;
+
 /**
  * Partial robust M-regression as described in
  * <a href="https://www.sciencedirect.com/science/article/abs/pii/S0169743905000638">Partial robust M-regression</a>
@@ -15,6 +17,8 @@ import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
  * - tol: Iterative convergence tolerance
  * - maxIter: Maximum number of iterations
  * - numSimplsCoefficients: Number of SIMPLS coefficients
+ * - warmStart: Flag to compute the initial residual weights from the
+ * regression coefficients of the previous configuration
  *
  * @author Steven Lang
  */
@@ -53,6 +57,15 @@ public class PRM
   /** SIMPLS algorithm */
   protected SIMPLS m_Simpls;
 
+  /** Flag to start from the coefficients of the previous configuration */
+  protected boolean m_WarmStart = false;
+
+  /** Work vectors, reused across the iterations of a fit */
+  protected transient PRMWorkspace m_Workspace;
+
+  /** Number of reweighting iterations of the last configuration */
+  protected int m_NumIterations;
+
   /**
    * Sets the number of coefficients of W matrix to keep (rest gets zeroed).
    *
@@ -72,6 +85,37 @@ public class PRM
     return m_NumSimplsCoefficients;
   }
 
+  /**
+   * Get whether warm start flag is set.
+   *
+   * @return True if warm start is set
+   */
+  public boolean isWarmStart() {
+    return m_WarmStart;
+  }
+
+  /**
+   * Set whether to compute the initial residual weights from the residuals
+   * of the regression coefficients of the previous configuration (if the
+   * number of predictors matches), rather than from the residuals to the
+   * median of the response. Does not reset the model, as the previous
+   * coefficients are required.
+   *
+   * @param warmStart Warm start flag
+   */
+  public void setWarmStart(boolean warmStart) {
+    m_WarmStart = warmStart;
+  }
+
+  /**
+   * Get the number of reweighting iterations of the last configuration.
+   *
+   * @return Number of iterations
+   */
+  public int getNumIterations() {
+    return m_NumIterations;
+  }
+
   /**
    * Get maximum number of iterations.
    *
@@ -156,6 +200,8 @@ public class PRM
     m_Gamma = null;
     m_T = null;
     m_Simpls = null;
+    m_Workspace = null;
+    m_NumIterations = 0;
   }
 
   @Override
@@ -223,6 +269,20 @@ public class PRM
     updateLeverageWeights(X);
   }
 
+  /**
+   * Initialize the residual weights from the residuals of the given
+   * regression coefficients (warm start) and the leverage weights.
+   *
+   * @param X Predictor matrix
+   * @param y Response matrix
+   * @param predictors Predictors the coefficients apply to
+   * @param coefficients Regression coefficients
+   */
+  protected void initWeights(Matrix X, Matrix y, Matrix predictors, Matrix coefficients) {
+    updateResidualWeights(y.sub(predictors.mul(coefficients)));
+    updateLeverageWeights(X);
+  }
+
   /**
    * Update the leverage weights based on the score matrix T
    *
@@ -230,19 +290,21 @@ public class PRM
    */
   private void updateLeverageWeights(Matrix T) {
     int n = T.numRows();
-    m_Wx = MatrixFactory.zeros(n, 1);
+    PRMWorkspace ws = getWorkspace(n);
+    double[][] points = T.toRawCopy2D();
 
-    Matrix rowL1Median = geometricMedian(T);
-    Matrix distancesToMedian = cdist(T, rowL1Median);
+    double[] rowL1Median = geometricMedian(points, ws);
+    double[] distancesToMedian = ws.distances;
+    cdist(points, rowL1Median, distancesToMedian);
 
-    double medianOfDistsToMedian = distancesToMedian.median();
+    double medianOfDistsToMedian = median(distancesToMedian, ws);
 
     // Calculate wxi by f(zi, c) with zi = (distance_i to median) / (median of distances to median)
+    double[] wx = new double[n];
     for (int i = 0; i < n; i++) {
-      double distToMedian = distancesToMedian.get(i, 0);
-      double wxi = fairFunction(distToMedian / medianOfDistsToMedian, m_C);
-      m_Wx.set(i, 0, wxi);
+      wx[i] = fairFunction(distancesToMedian[i] / medianOfDistsToMedian, m_C);
     }
+    m_Wx = MatrixFactory.fromColumn(wx);
   }
 
   /**
@@ -253,37 +315,51 @@ public class PRM
    */
   protected void updateResidualWeights(Matrix X, Matrix y) {
     int n = X.numRows();
-    m_Wr = MatrixFactory.zeros(n, 1);
-
-    Matrix residuals = MatrixFactory.zeros(n, 1);
+    PRMWorkspace ws = getWorkspace(n);
+    double[] yRaw = y.toRawCopy1D();
+    double[] residuals = ws.residuals;
 
-    // Check if this is the first iteration
+    // Use T * gamma as estimation if iteration > 0, the median otherwise
     boolean isFirstIteration = m_T == null && m_Gamma == null;
-
-    double yiHat = y.median();
-    for (int i = 0; i < n; i++) {
-      // Use ti * gamma as estimation if iteration > 0
-      if (!isFirstIteration) {
-	yiHat = m_T.getRow(i).mul(m_Gamma).asDouble();
-      }
-
-      // Calculate residual
-      double yi = y.get(i, 0);
-      double ri = yi - yiHat;
-      residuals.set(i, 0, ri);
+    if (isFirstIteration) {
+      double yHat = median(yRaw, ws);
+      for (int i = 0; i < n; i++)
+	residuals[i] = yRaw[i] - yHat;
     }
+    else {
+      double[] yHat = m_T.mul(m_Gamma).toRawCopy1D();
+      for (int i = 0; i < n; i++)
+	residuals[i] = yRaw[i] - yHat[i];
+    }
+
+    updateResidualWeights(residuals, ws);
+  }
 
+  /**
+   * Update the residual weights based on the given residuals.
+   *
+   * @param residuals Residuals
+   */
+  protected void updateResidualWeights(Matrix residuals) {
+    updateResidualWeights(residuals.toRawCopy1D(), getWorkspace(residuals.numRows()));
+  }
 
+  /**
+   * Update the residual weights based on the given residuals.
+   *
+   * @param residuals Residuals
+   * @param ws        Workspace
+   */
+  private void updateResidualWeights(double[] residuals, PRMWorkspace ws) {
     // Get estimate of residual scale
-    double sigma = medianAbsoluteDeviation(residuals);
-    residuals = residuals.div(sigma);
+    double sigma = medianAbsoluteDeviation(residuals, ws);
 
     // Calculate weights
-    for (int i = 0; i < n; i++) {
-      double ri = residuals.get(i, 0);
-      double wri = fairFunction(ri, m_C);
-      m_Wr.set(i, 0, wri);
+    double[] wr = new double[residuals.length];
+    for (int i = 0; i < wr.length; i++) {
+      wr[i] = fairFunction(residuals[i] / sigma, m_C);
     }
+    m_Wr = MatrixFactory.fromColumn(wr);
   }
 
   /**
@@ -297,6 +373,54 @@ public class PRM
     return v.sub(v.median()).abs().median();
   }
 
+  /**
+   * Median Absolute Deviation, see {@link #medianAbsoluteDeviation(Matrix)}.
+   *
+   * @param v  Input vector
+   * @param ws Workspace
+   * @return MAD result
+   */
+  private double medianAbsoluteDeviation(double[] v, PRMWorkspace ws) {
+    double median = median(v, ws);
+    double[] deviations = ws.deviations;
+    for (int i = 0; i < v.length; i++)
+      deviations[i] = Math.abs(v[i] - median);
+    return median(deviations, ws);
+  }
+
+  /**
+   * Median of the vector, computed on the sort buffer of the workspace.
+   *
+   * @param v  Input vector
+   * @param ws Workspace
+   * @return Median
+   */
+  private double median(double[] v, PRMWorkspace ws) {
+    double[] sorted = ws.sorted;
+    System.arraycopy(v, 0, sorted, 0, v.length);
+    Arrays.sort(sorted, 0, v.length);
+    int size = v.length;
+    if (size % 2 == 0) {
+      return (sorted[size / 2] + sorted[size / 2 - 1]) / 2;
+    }
+    else {
+      return sorted[size / 2];
+    }
+  }
+
+  /**
+   * Returns the workspace for the given number of rows, allocating it if
+   * necessary.
+   *
+   * @param n Number of rows
+   * @return Workspace
+   */
+  private PRMWorkspace getWorkspace(int n) {
+    if (m_Workspace == null || m_Workspace.residuals.length != n)
+      m_Workspace = new PRMWorkspace(n);
+    return m_Workspace;
+  }
+
   /**
    * Trains using the provided data.
    *
@@ -308,6 +432,14 @@ public class PRM
     Matrix y = response;
     Matrix U = null;
 
+    // Keep the coefficients of the previous configuration for a warm start
+    Matrix initCoefficients = null;
+    if (m_WarmStart && m_FinalRegressionCoefficients != null
+      && m_FinalRegressionCoefficients.numRows() == predictors.numColumns())
+      initCoefficients = m_FinalRegressionCoefficients;
+    m_T = null;
+    m_Gamma = null;
+
     // If X: n x p and p > n, use SVD to replace X with n x n matrix
     // See also: Remark 2 in paper
     boolean hasMoreColumnsThanRows = X.numColumns() > X.numRows();
@@ -322,7 +454,10 @@ public class PRM
     }
 
     // 1) Compute robust starting values for residual and leverage weights
-    initWeights(X, y);
+    if (initCoefficients != null)
+      initWeights(X, y, predictors, initCoefficients);
+    else
+      initWeights(X, y);
 
     Matrix gammaOld;
     int numComponents = getNumComponents();
@@ -335,8 +470,9 @@ public class PRM
 	throw new StoppedException();
 
       // 2) Perform PLS (SIMPLS) on reweighted data matrices
-      Matrix Xp = getReweightedMatrix(X);
-      Matrix yp = getReweightedMatrix(y);
+      Matrix sqrtWeights = getSqrtCombinedWeights();
+      Matrix Xp = X.scaleByColumnVector(sqrtWeights);
+      Matrix yp = y.scaleByColumnVector(sqrtWeights);
 
       m_Simpls = new SIMPLS();
       m_Simpls.setNumCoefficients(m_NumSimplsCoefficients);
@@ -349,11 +485,10 @@ public class PRM
       m_Gamma = m_Simpls.getMatrix("Q").t();
 
       // Rescale ti by 1/sqrt(wi)
-      for (int i = 0; i < m_T.numRows(); i++) {
-	double wiSqrt = Math.sqrt(getCombinedWeight(i));
-	Matrix rowiScaled = m_T.getRow(i).div(wiSqrt);
-	m_T.setRow(i, rowiScaled);
-      }
+      double[] invSqrtWeights = m_Workspace.sqrtWeights;
+      for (int i = 0; i < invSqrtWeights.length; i++)
+	invSqrtWeights[i] = 1.0 / invSqrtWeights[i];
+      m_T = m_T.scaleByColumnVector(MatrixFactory.fromColumn(invSqrtWeights));
 
       // Update weights
       updateResidualWeights(Xp, yp);
@@ -362,7 +497,8 @@ public class PRM
 
       // Check for convergence
     }
-    while (m_Gamma.sub(gammaOld).norm2squared() < m_Tol && iteration < m_MaxIter);
+    while (m_Gamma.sub(gammaOld).norm2squared() > m_Tol && iteration < m_MaxIter);
+    m_NumIterations = iteration;
 
     // Get the final regression coefficients from the latest SIMPLS run
     m_FinalRegressionCoefficients = m_Simpls.getMatrix("B");
@@ -390,13 +526,26 @@ public class PRM
   }
 
   protected Matrix getReweightedMatrix(Matrix A) {
-    return A.copy().scaleByColumnVector(m_Wr.mulElementwise(m_Wx).sqrt());
+    return A.scaleByColumnVector(getSqrtCombinedWeights());
   }
 
   protected double getCombinedWeight(int i) {
-    double wxi = m_Wx.getRow(i).asDouble();
-    double wri = m_Wr.getRow(i).asDouble();
-    return wxi * wri;
+    return m_Wx.get(i, 0) * m_Wr.get(i, 0);
+  }
+
+  /**
+   * Computes sqrt(wi) of the combined weights, also keeping them in the
+   * workspace.
+   *
+   * @return Square roots of the combined weights
+   */
+  protected Matrix getSqrtCombinedWeights() {
+    double[] wx = m_Wx.toRawCopy1D();
+    double[] wr = m_Wr.toRawCopy1D();
+    double[] sqrtWeights = getWorkspace(wx.length).sqrtWeights;
+    for (int i = 0; i < sqrtWeights.length; i++)
+      sqrtWeights[i] = Math.sqrt(wx[i] * wr[i]);
+    return MatrixFactory.fromColumn(sqrtWeights);
   }
 
   /**
@@ -409,28 +558,60 @@ public class PRM
    * @return Geometric median of {@code X}
    */
   protected Matrix geometricMedian(Matrix X) {
+    double[] median = geometricMedian(X.toRawCopy2D(), getWorkspace(X.numRows()));
+    return MatrixFactory.fromRow(median);
+  }
+
+  /**
+   * Weiszfeld's algorithm on the rows of X.
+   *
+   * @param X  Points (rows)
+   * @param ws Workspace
+   * @return Geometric median of {@code X}
+   */
+  private double[] geometricMedian(double[][] X, PRMWorkspace ws) {
+    int n = X.length;
+    int p = X[0].length;
+    double[] dists = ws.distances;
+
     // Initial guess
-    Matrix guess = X.mean(0);
+    double[] guess = new double[p];
+    for (double[] row : X) {
+      for (int j = 0; j < p; j++)
+	guess[j] += row[j];
+    }
+    for (int j = 0; j < p; j++)
+      guess[j] /= n;
+    double[] guessNext = new double[p];
 
     int iteration = 0;
     while (iteration < m_MaxIter) {
-      Matrix dists = cdist(X, guess);
-
-      dists = dists.applyElementwise(value -> {
-	if (Math.abs(value) < 1e-10) {
-	  return 1.0 / 0.1; // Fix zero distances
-	}
-	else {
-	  return 1.0 / value; // invert
-	}
-      });
-
-      Matrix nom = X.scaleByColumnVector(dists).sum(0);
-      double denom = dists.sum(0).asDouble();
-      Matrix guessNext = nom.div(denom);
-
-      double change = guessNext.sub(guess).norm2squared();
+      cdist(X, guess, dists);
+
+      double denom = 0.0;
+      for (int i = 0; i < n; i++) {
+	if (Math.abs(dists[i]) < 1e-10)
+	  dists[i] = 1.0 / 0.1; // Fix zero distances
+	else
+	  dists[i] = 1.0 / dists[i]; // invert
+	denom += dists[i];
+      }
+
+      Arrays.fill(guessNext, 0.0);
+      for (int i = 0; i < n; i++) {
+	for (int j = 0; j < p; j++)
+	  guessNext[j] += X[i][j] * dists[i];
+      }
+
+      double change = 0.0;
+      for (int j = 0; j < p; j++) {
+	guessNext[j] /= denom;
+	double d = guessNext[j] - guess[j];
+	change += d * d;
+      }
+      double[] tmp = guess;
       guess = guessNext;
+      guessNext = tmp;
       if (change < m_Tol) {
 	break;
       }
@@ -449,12 +630,55 @@ public class PRM
    * @return Distances of each row r_i with the input vector
    */
   protected Matrix cdist(Matrix X, Matrix vector) {
-    Matrix dist = MatrixFactory.zeros(X.numRows(), 1);
-    for (int i = 0; i < X.numRows(); i++) {
-      Matrix rowi = X.getRow(i);
-      double d = rowi.sub(vector).norm2();
-      dist.set(i, 0, d);
+    double[] dist = new double[X.numRows()];
+    cdist(X.toRawCopy2D(), vector.toRawCopy1D(), dist);
+    return MatrixFactory.fromColumn(dist);
+  }
+
+  /**
+   * Euclidean distances between all rows of X and a given vector.
+   *
+   * @param X      Input matrix with rows
+   * @param vector Vector to compare all rows of X to
+   * @param dist   Receives the distance of each row r_i to the vector
+   */
+  private void cdist(double[][] X, double[] vector, double[] dist) {
+    for (int i = 0; i < X.length; i++) {
+      double sum = 0.0;
+      for (int j = 0; j < vector.length; j++) {
+	double d = X[i][j] - vector[j];
+	sum += d * d;
+      }
+      dist[i] = Math.sqrt(sum);
+    }
+  }
+
+  /**
+   * Work vectors (n) of a fit, reused across the PRM iterations.
+   */
+  protected static class PRMWorkspace {
+
+    /** Residuals */
+    double[] residuals;
+
+    /** Distances to the geometric median, inverted by Weiszfeld's algorithm */
+    double[] distances;
+
+    /** Absolute deviations from the median */
+    double[] deviations;
+
+    /** Sort buffer for computing medians */
+    double[] sorted;
+
+    /** Square roots of the combined weights */
+    double[] sqrtWeights;
+
+    public PRMWorkspace(int n) {
+      residuals = new double[n];
+      distances = new double[n];
+      deviations = new double[n];
+      sorted = new double[n];
+      sqrtWeights = new double[n];
     }
-    return dist;
   }
 }
@@ -21,6 +21,9 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.algorithm.MatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.core.Utils;
@@ -168,66 +171,160 @@ public class SIMPLS
    * @param response   the dependent variable(s)
    */
   protected void doPLSConfigure(Matrix predictors, Matrix response) {
-    Matrix A, A_trans;
-    Matrix M;
-    Matrix X_trans;
-    Matrix C, c;
+    doPLSConfigureFromCrossProducts(predictors.gram(), predictors.tmul(response));
+  }
+
+  /**
+   * Initializes using the accumulated cross-products of the data, which
+   * allows training on more rows than fit into memory. Predictors and
+   * response get preprocessed according to the preprocessing type, using
+   * the column statistics of the accumulator.
+   *
+   * @param crossProducts	the accumulated data
+   * @see			CrossProductsAccumulator
+   */
+  public void configureFromCrossProducts(CrossProductsAccumulator crossProducts) {
+    configureFromCrossProducts(
+      crossProducts.getXtX(m_PreprocessingType),
+      crossProducts.getXty(m_PreprocessingType),
+      crossProducts.getPredictorMeans(),
+      crossProducts.getPredictorStdDevs(),
+      crossProducts.getResponseMeans(),
+      crossProducts.getResponseStdDevs());
+  }
+
+  /**
+   * Initializes using the cross-products of the preprocessed data.
+   *
+   * @param XtX		X^T*X of the preprocessed predictors
+   * @param Xty		X^T*y of the preprocessed predictors and response
+   * @param meansX	the column means of the predictors
+   * @param stdDevsX	the column standard deviations of the predictors, only required for standardizing
+   * @param meansY	the column means of the response
+   * @param stdDevsY	the column standard deviations of the response, only required for standardizing
+   */
+  public void configureFromCrossProducts(Matrix XtX, Matrix Xty, double[] meansX, double[] stdDevsX, double[] meansY, double[] stdDevsY) {
+    if (Xty.numColumns() != 1)
+      throw new MatrixAlgorithmsException("Algorithm requires exactly one response variable, found: " + Xty.numColumns());
+    checkCrossProducts(XtX, Xty);
+
+    reset();
+    configurePreprocessing(meansX, stdDevsX, meansY, stdDevsY);
+    doPLSConfigureFromCrossProducts(XtX, Xty);
+    setConfigured();
+  }
+
+  /**
+   * Initializes using the cross-products of the preprocessed data.
+   *
+   * @param XtX		X^T*X of the preprocessed predictors
+   * @param Xty		X^T*y of the preprocessed predictors and response
+   */
+  protected void doPLSConfigureFromCrossProducts(Matrix XtX, Matrix Xty) {
+    Matrix[]	WQ;
+
+    WQ = simpls(this, XtX, Xty, getNumComponents());
+    if (m_NumCoefficients > 0)
+      slim(WQ[0]);
+    m_W = WQ[0];
+    m_B = WQ[0].mult(WQ[1]);
+    m_Q = WQ[1];
+  }
+
+  /**
+   * Checks whether the cross-products fit together.
+   *
+   * @param XtX		X^T*X of the preprocessed predictors
+   * @param XtY		X^T*Y of the preprocessed predictors and response
+   * @throws InvalidShapeException	if X^T*X is not square or doesn't match X^T*Y
+   */
+  protected static void checkCrossProducts(Matrix XtX, Matrix XtY) {
+    if ((XtX.numRows() != XtX.numColumns()) || (XtX.numRows() != XtY.numRows()))
+      throw new InvalidShapeException("Cross-products don't match", XtX, XtY);
+  }
+
+  /**
+   * Runs SIMPLS on the cross-products of the preprocessed data. Handles
+   * multiple responses as well (see {@link PLS2}), in which case the
+   * direction of each component is given by the dominant eigenvector of
+   * Ah'*Ah.
+   *
+   * @param owner	the algorithm that gets checked for being stopped
+   * @param XtX		X^T*X of the preprocessed predictors
+   * @param XtY		X^T*Y of the preprocessed predictors and response
+   * @param numComponents	the number of components to compute
+   * @return		the W (p x k) and Q (m x k) matrices
+   * @throws StoppedException	if the owner got stopped
+   */
+  protected static Matrix[] simpls(MatrixAlgorithm owner, Matrix XtX, Matrix XtY, int numComponents) {
+    Matrix A;
+    Matrix M, Mw;
     Matrix Q, q;
     Matrix W, w;
-    Matrix P, p, p_trans;
-    Matrix v, v_trans;
+    Matrix P, p;
+    Matrix V, v;
+    double scale;
     int h;
 
-    X_trans = predictors.transpose();
-    A = X_trans.mul(response);
-    M = X_trans.mul(predictors);
-    C = MatrixFactory.eye(predictors.numColumns(), predictors.numColumns());
-    W = MatrixFactory.zeros(predictors.numColumns(), getNumComponents());
-    P = MatrixFactory.zeros(predictors.numColumns(), getNumComponents());
-    Q = MatrixFactory.zeros(1, getNumComponents());
-
-    for (h = 0; h < getNumComponents(); h++) {
-      if (m_Stopped)
+    A = XtY;
+    M = XtX;
+    W = MatrixFactory.zeros(XtX.numColumns(), numComponents);
+    P = MatrixFactory.zeros(XtX.numColumns(), numComponents);
+    V = MatrixFactory.zeros(XtX.numColumns(), numComponents);
+    Q = MatrixFactory.zeros(XtY.numColumns(), numComponents);
+
+    // Neither the projection Ch=I-Vh*Vh' nor the deflated Mh=M-Ph*Ph' get
+    // formed, as the columns of V and P beyond h are still zero, they can be
+    // applied via the (p x h) matrices at O(p*h) cost
+    for (h = 0; h < numComponents; h++) {
+      if (owner.isStopped())
 	throw new StoppedException();
 
-      // 1. qh as dominant EigenVector of Ah'*Ah
-      A_trans = A.transpose();
-      q = A_trans.mul(A).getDominantEigenvector();
-
-      // 2. wh=Ah*qh, ch=wh'*Mh*wh, wh=wh/sqrt(ch), store wh in W as column
-      w = A.mul(q);
-      c = w.transpose().mul(M).mul(w);
-      w = w.mul(1.0 / StrictMath.sqrt(c.asDouble()));
+      // 1. qh as dominant EigenVector of Ah'*Ah, a (m x m) matrix for m
+      // responses, wh=Ah*qh; for a single response qh is 1, hence wh=Ah
+      if (A.numColumns() == 1)
+	w = A;
+      else
+	w = A.mul(A.gram().getDominantEigenvector());
+
+      // 2. ch=wh'*Mh*wh, wh=wh/sqrt(ch), store wh in W as column
+      Mw = M.mul(w).sub(P.mul(P.tmul(w)));
+      scale = 1.0 / StrictMath.sqrt(w.tmul(Mw).asDouble());
+      w = w.mul(scale);
       W.setColumn(h, w);
 
       // 3. ph=Mh*wh, store ph in P as column
-      p = M.mul(w);
-      p_trans = p.transpose();
+      p = Mw.mul(scale);
       P.setColumn(h, p);
 
       // 4. qh=Ah'*wh, store qh in Q as column
-      q = A_trans.mul(w);
+      q = A.tmul(w);
       Q.setColumn(h, q);
 
-      // 5. vh=Ch*ph, vh=vh/||vh||
-      v = C.mul(p);
+      // 5. vh=Ch*ph=ph-V*(V'*ph), vh=vh/||vh||, store vh in V as column
+      v = p.sub(V.mul(V.tmul(p)));
       v = v.normalized();
-      v_trans = v.transpose();
-
-      // 6. Ch+1=Ch-vh*vh', Mh+1=Mh-ph*ph'
-      C = C.sub(v.mul(v_trans));
-      M = M.sub(p.mul(p_trans));
+      V.setColumn(h, v);
 
-      // 7. Ah+1=ChAh (actually Ch+1)
-      A = C.mul(A);
+      // 6./7. Ah+1=Ch+1*Ah=Ah-V*(V'*Ah)
+      A = A.sub(V.mul(V.tmul(A)));
     }
 
-    // finish
-    if (m_NumCoefficients > 0)
-      slim(W);
-    m_W = W;
-    m_B = W.mul(Q.transpose());
-    m_Q = Q;
+    return new Matrix[]{W, Q};
+  }
+
+  /**
+   * Performs predictions using only the first components, i.e., via
+   * B = W_k*Q_k'.
+   *
+   * @param predictors	the preprocessed input data
+   * @param W		the W matrix
+   * @param Q		the Q matrix
+   * @param numComponents	the number of components to use
+   * @return		the predictions
+   */
+  protected static Matrix predict(Matrix predictors, Matrix W, Matrix Q, int numComponents) {
+    return predictors.mul(W.getColumns(0, numComponents)).mult(Q.getColumns(0, numComponents));
   }
 
   /**
@@ -260,4 +357,31 @@ public class SIMPLS
   protected Matrix doPLSPredict(Matrix predictors) {
     return predictors.mul(m_B);
   }
+
+  /**
+   * Performs predictions on the data, using only the first components,
+   * i.e., via B = W_k*Q_k'.
+   *
+   * @param predictors the input data
+   * @param numComponents the number of components to use
+   * @return the predictions
+   */
+  @Override
+  protected Matrix doPLSPredict(Matrix predictors, int numComponents) {
+    if (numComponents == getNumComponents())
+      return doPLSPredict(predictors);
+
+    return predict(predictors, m_W, m_Q, numComponents);
+  }
+
+  /**
+   * Returns whether the algorithm can make predictions with fewer components
+   * than configured.
+   *
+   * @return		true if supported
+   */
+  @Override
+  public boolean canPredictWithFewerComponents() {
+    return true;
+  }
 }
@@ -21,12 +21,15 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixHelper;
 import com.github.waikatodatamining.matrix.algorithms.Standardize;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 
@@ -53,16 +56,23 @@ public class SparsePLS
 
   protected Matrix m_Bpls;
 
-  /** NIPALS tolerance threshold */
+  /** NIPALS tolerance threshold, unused for a single response */
   protected double m_Tol = 1e-7;
 
-  /** NIPALS max iterations */
+  /** NIPALS max iterations, unused for a single response */
   protected int m_MaxIter = 500;
 
   /** Sparsity parameter. Determines sparseness. */
   protected double m_lambda = 0.5;
 
-  protected Set<Integer> m_A;
+  /** Indices of the selected features (ascending). */
+  protected int[] m_A;
+
+  /** Coefficients for the active features in the original (unstandardised) space */
+  protected double[] m_ActiveCoef;
+
+  /** Intercept in the original (unstandardised) space */
+  protected double m_Intercept;
 
   /** Loadings. */
   protected Matrix m_W;
@@ -73,10 +83,33 @@ public class SparsePLS
   /** Standardize Y */
   protected Standardize m_StandardizeY = new Standardize();
 
+  /**
+   * Active set fits of the previous lambda on a path, used as warm start.
+   * After configuring, holds the fits used by this model. Null if not
+   * fitting a path.
+   */
+  protected transient List<ActiveSetFit> m_WarmStartFits;
+
+  /** The model of the lambda path currently being fitted */
+  protected transient SparsePLS m_PathModel;
+
+  /**
+   * Returns the maximum number of iterations.
+   * Not used for a single response, as its direction vector is computed in
+   * closed form and the NIPALS fits converge after one iteration.
+   *
+   * @return Maximum iterations
+   */
   public int getMaxIter() {
     return m_MaxIter;
   }
 
+  /**
+   * Sets the maximum number of iterations.
+   * Not used for a single response, see {@link #getMaxIter()}.
+   *
+   * @param maxIter Maximum iterations
+   */
   public void setMaxIter(int maxIter) {
     if (maxIter < 0) {
       getLogger().warning("Maximum iterations parameter must be positive " +
@@ -87,10 +120,22 @@ public class SparsePLS
     }
   }
 
+  /**
+   * Returns the tolerance.
+   * Not used for a single response, see {@link #getMaxIter()}.
+   *
+   * @return Tolerance
+   */
   public double getTol() {
     return m_Tol;
   }
 
+  /**
+   * Sets the tolerance.
+   * Not used for a single response, see {@link #getMaxIter()}.
+   *
+   * @param tol Tolerance
+   */
   public void setTol(double tol) {
     if (tol < 0) {
       getLogger().warning("Tolerance parameter must be positive but " +
@@ -115,6 +160,16 @@ public class SparsePLS
     }
   }
 
+  /**
+   * Returns the indices of the selected features, i.e., the features with
+   * non-zero regression coefficients or weights.
+   *
+   * @return Feature indices (ascending), null if not configured
+   */
+  public int[] getSelectedFeatures() {
+    return (m_A == null) ? null : m_A.clone();
+  }
+
   /**
    * Resets the member variables.
    */
@@ -123,6 +178,8 @@ public class SparsePLS
     super.doReset();
     m_Bpls = null;
     m_A = null;
+    m_ActiveCoef = null;
+    m_Intercept = 0.0;
     m_W = null;
     m_StandardizeX = new Standardize();
     m_StandardizeY = new Standardize();
@@ -186,21 +243,27 @@ public class SparsePLS
    */
   protected void doPLSConfigure(Matrix predictors, Matrix response) {
     Matrix X, y, wk;
-    getLogger();
 
     X = m_StandardizeX.configureAndTransform(predictors);
     y = m_StandardizeY.configureAndTransform(response);
-    Matrix Xj = X.copy();
     Matrix yj = y.copy();
-    m_A = new TreeSet<>();
+    m_A = new int[0];
     m_Bpls = MatrixFactory.zeros(X.numColumns(), y.numColumns());
     m_W = MatrixFactory.zeros(X.numColumns(), getNumComponents());
 
+    // The NIPALS fit on the active set, extended by one component as long as
+    // the active set does not change
+    ActiveSetFit fit = null;
+    List<ActiveSetFit> fits = new ArrayList<>();
+    int[] previousA;
+
     for (int k = 0; k < getNumComponents(); k++) {
       if (m_Stopped)
 	throw new StoppedException();
 
-      wk = getDirectionVector(Xj, yj, k);
+      previousA = m_A;
+
+      wk = getDirectionVector(X, yj, k);
       m_W.setColumn(k, wk);
 
       if (m_Debug) {
@@ -209,79 +272,162 @@ public class SparsePLS
 
       collectIndices(wk);
 
-      Matrix X_A = getColumnSubmatrixOf(X);
-      m_Bpls = MatrixFactory.zeros(X.numColumns(), y.numColumns());
-      Matrix Bpls_A = getRegressionCoefficient(X_A, y, k);
+      Matrix X_A = X.getColumns(m_A);
+      if (fit == null || !Arrays.equals(fit.indices, m_A)) {
+	fit = findWarmStartFit(m_A);
+	if (fit == null)
+	  fit = new ActiveSetFit(getLogger(), m_A, X_A, y, Math.min(m_A.length, getNumComponents()));
+	fits.add(fit);
+      }
+      int numComponents = Math.min(m_A.length, k + 1);
+      while (fit.numComponents < numComponents && !fit.exhausted) {
+	if (m_Stopped)
+	  throw new StoppedException();
+	fit.addComponent();
+      }
+      Matrix Bpls_A = fit.getCoef(Math.min(numComponents, fit.numComponents));
 
       // Fill m_Bpls values at non zero indices with estimated
-      // regression coefficients
-      int idxCounter = 0;
-      for (Integer idx : m_A) {
-	m_Bpls.setRow(idx, Bpls_A.getRow(idxCounter++));
+      // regression coefficients, only the previous ones are non zero
+      for (int i = 0; i < previousA.length; i++) {
+	m_Bpls.set(previousA[i], 0, 0.0);
+      }
+      for (int i = 0; i < m_A.length; i++) {
+	m_Bpls.set(m_A[i], 0, Bpls_A.get(i, 0));
       }
 
       // Deflate
-      yj = y.sub(X.mul(m_Bpls));
+      yj = y.sub(X_A.mul(Bpls_A));
     }
 
+    if (m_WarmStartFits != null)
+      m_WarmStartFits = fits;
+
+    initPrediction();
+
     if (m_Debug) {
       getLogger().info("Selected following features " +
-	"(" + m_A.size() + "/" + X.numColumns() + "): ");
-      List<String> l = m_A.stream().map(String::valueOf).collect(Collectors.toList());
+	"(" + m_A.length + "/" + X.numColumns() + "): ");
+      List<String> l = Arrays.stream(m_A).mapToObj(String::valueOf).collect(Collectors.toList());
       getLogger().info(String.join(",", l));
     }
   }
 
   /**
-   * Calculate NIPALS regression coefficients.
-   *
-   * @param X_A Predictors subset
-   * @param y   Current response vector
-   * @param k   PLS iteration
-   * @return Bpls (NIPALS regression coefficients)
+   * Folds the standardisation of X and y into the coefficients of the active
+   * features and an intercept, so that predictions only need a dot product
+   * over the active columns.
    */
-  private Matrix getRegressionCoefficient(Matrix X_A, Matrix y, int k) {
-    int numComponents = Math.min(X_A.numColumns(), k + 1);
-    NIPALS nipals = new NIPALS();
-    nipals.setMaxIter(m_MaxIter);
-    nipals.setTol(m_Tol);
-    nipals.setNumComponents(numComponents);
-    nipals.configure(X_A, y);
-    return nipals.getCoef();
+  private void initPrediction() {
+    double[] xMeans = m_StandardizeX.getMeans();
+    double[] xStds = m_StandardizeX.getStdDevs();
+    double yMean = m_StandardizeY.getMeans()[0];
+    double yStd = m_StandardizeY.getStdDevs()[0];
+
+    m_ActiveCoef = new double[m_A.length];
+    m_Intercept = yMean;
+    for (int i = 0; i < m_A.length; i++) {
+      int j = m_A[i];
+      // Standardize leaves columns without variance unscaled
+      double xStd = (xStds[j] == 0.0) ? 1.0 : xStds[j];
+      m_ActiveCoef[i] = yStd * m_Bpls.get(j, 0) / xStd;
+      m_Intercept -= m_ActiveCoef[i] * xMeans[j];
+    }
   }
 
   /**
-   * Get the column submatrix of X given by the indices in m_A
+   * Returns the fit of the previous lambda on the path for the given active
+   * set, if any. As the fit only depends on the active set, it can be
+   * continued.
    *
-   * @param X Input Matrix
-   * @return Submatrix of x
+   * @param indices Indices of the active set
+   * @return The fit, null if none available
    */
-  private Matrix getColumnSubmatrixOf(Matrix X) {
-    Matrix X_A = MatrixFactory.zeros(X.numRows(), m_A.size());
-    int colCount = 0;
-    for (Integer i : m_A) {
-      Matrix col = X.getColumn(i);
-      X_A.setColumn(colCount, col);
-      colCount++;
+  private ActiveSetFit findWarmStartFit(int[] indices) {
+    if (m_WarmStartFits == null)
+      return null;
+    for (ActiveSetFit fit : m_WarmStartFits) {
+      if (Arrays.equals(fit.indices, indices))
+	return fit;
     }
-    return X_A;
+    return null;
   }
 
   /**
-   * Get the row submatrix of X given by the indices in m_A
+   * Fits one copy of this setup per lambda. The lambdas are processed in
+   * decreasing order, each fit starting from the active set fits of the
+   * previous (sparser) lambda: whenever a component selects an active set
+   * that was already fitted, its deflated data and components are reused
+   * instead of fitting from scratch. The models get created from the setup
+   * of this object (see {@link #newPathModel(double)}), which is not
+   * modified, hence copies of it can fit the paths of several
+   * cross-validation folds in parallel.
    *
-   * @param X Input Matrix
-   * @return Submatrix of x
+   * @param lambdas    Lambda values
+   * @param predictors the input data
+   * @param response   the dependent variable
+   * @return Models, one per lambda (in the order of the lambdas)
    */
-  private Matrix getRowSubmatrixOf(Matrix X) {
-    Matrix X_A = MatrixFactory.zeros(m_A.size(), X.numColumns());
-    int rowCount = 0;
-    for (Integer i : m_A) {
-      Matrix row = X.getRow(i);
-      X_A.setRow(rowCount, row);
-      rowCount++;
+  public List<SparsePLS> configurePath(double[] lambdas, Matrix predictors, Matrix response) {
+    Integer[] order = new Integer[lambdas.length];
+    for (int i = 0; i < lambdas.length; i++) {
+      if (lambdas[i] < 0)
+	throw new MatrixAlgorithmsException("Sparseness parameter lambda must be positive but was " + lambdas[i] + ".");
+      order[i] = i;
+    }
+    Arrays.sort(order, (i, j) -> Double.compare(lambdas[j], lambdas[i]));
+
+    m_Stopped = false;
+    SparsePLS[] models = new SparsePLS[lambdas.length];
+    List<ActiveSetFit> warmStartFits = new ArrayList<>();
+    try {
+      for (int i : order) {
+	if (m_Stopped)
+	  throw new StoppedException();
+	SparsePLS model = newPathModel(lambdas[i]);
+	model.m_WarmStartFits = warmStartFits;
+	m_PathModel = model;
+	model.configure(predictors, response);
+	warmStartFits = model.m_WarmStartFits;
+	model.m_WarmStartFits = null;
+	models[i] = model;
+      }
     }
-    return X_A;
+    finally {
+      m_PathModel = null;
+    }
+
+    return Arrays.asList(models);
+  }
+
+  /**
+   * Creates the unconfigured model for one lambda of the path. Apart from the
+   * sparsity parameter, it uses the setup of this model, i.e., preprocessing,
+   * number of components, tolerance and maximum iterations. The active set
+   * fits to warm start from get attached by
+   * {@link #configurePath(double[], Matrix, Matrix)}. Subclasses with
+   * additional setup need to override this.
+   *
+   * @param lambda Sparsity parameter
+   * @return Model
+   */
+  protected SparsePLS newPathModel(double lambda) {
+    SparsePLS result = new SparsePLS();
+    result.setDebug(getDebug());
+    result.setPreprocessingType(getPreprocessingType());
+    result.setNumComponents(getNumComponents());
+    result.m_Tol = m_Tol;
+    result.m_MaxIter = m_MaxIter;
+    result.m_lambda = lambda;
+    return result;
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    SparsePLS model = m_PathModel;
+    if (model != null)
+      model.stop();
   }
 
   /**
@@ -290,9 +436,22 @@ public class SparsePLS
    * @param w Direction Vector
    */
   private void collectIndices(Matrix w) {
-    m_A.clear();
-    m_A.addAll(w.whereVector(d -> Math.abs(d) > 1e-6));
-    m_A.addAll(m_Bpls.whereVector(d -> Math.abs(d) > 1e-6));
+    double[] wRaw = w.toRawCopy1D();
+    double[] bRaw = m_Bpls.toRawCopy1D();
+    boolean[] active = new boolean[wRaw.length];
+    int numActive = 0;
+    for (int i = 0; i < wRaw.length; i++) {
+      active[i] = Math.abs(wRaw[i]) > 1e-6 || Math.abs(bRaw[i]) > 1e-6;
+      if (active[i])
+	numActive++;
+    }
+
+    m_A = new int[numActive];
+    int idxCounter = 0;
+    for (int i = 0; i < active.length; i++) {
+      if (active[i])
+	m_A[idxCounter++] = i;
+    }
   }
 
   /**
@@ -426,15 +585,135 @@ public class SparsePLS
    */
   @Override
   protected Matrix doPLSPredict(Matrix predictors) {
-    Matrix X = m_StandardizeX.transform(predictors);
+    double[] yhat = new double[predictors.numRows()];
+    for (int i = 0; i < yhat.length; i++) {
+      double sum = m_Intercept;
+      for (int j = 0; j < m_A.length; j++)
+	sum += predictors.get(i, m_A[j]) * m_ActiveCoef[j];
+      yhat[i] = sum;
+    }
 
-    Matrix X_A = getColumnSubmatrixOf(X);
-    Matrix B_A = getRowSubmatrixOf(m_Bpls);
+    return MatrixFactory.fromColumn(yhat);
+  }
 
-    Matrix yMeans = MatrixFactory.fromColumn(m_StandardizeY.getMeans());
-    Matrix yStd = MatrixFactory.fromColumn(m_StandardizeY.getStdDevs());
-    Matrix yhat = X_A.mul(B_A).scaleByRowVector(yStd).addByVector(yMeans);
+  /**
+   * Single response NIPALS fit on the columns of the active set. As the
+   * data is already standardised, no further standardisation is applied.
+   * Components are added one at a time, re-using the deflated data of the
+   * previous components. Static, so that the fits shared along a lambda
+   * path don't keep the models that created them alive.
+   */
+  protected static class ActiveSetFit {
+
+    /** Logger for warnings */
+    protected Logger logger;
+
+    /** Indices of the features the fit is based on */
+    protected int[] indices;
+
+    /** Deflated predictors (n x |A|) */
+    protected double[][] X;
+
+    /** Deflated response */
+    protected double[] y;
+
+    /** X weights of the fitted components */
+    protected Matrix W;
+
+    /** X loadings of the fitted components */
+    protected Matrix P;
+
+    /** Y loadings of the fitted components */
+    protected Matrix Q;
+
+    /** Number of fitted components */
+    protected int numComponents;
+
+    /** Whether no further components can be extracted */
+    protected boolean exhausted;
+
+    /**
+     * Starts a fit without any components.
+     *
+     * @param logger  Logger for warnings
+     * @param indices Indices of the active features
+     * @param X_A     Predictors restricted to the active features
+     * @param y       Response
+     * @param maxComponents Maximum number of components to fit
+     */
+    protected ActiveSetFit(Logger logger, int[] indices, Matrix X_A, Matrix y, int maxComponents) {
+      this.logger = logger;
+      this.indices = indices;
+      this.X = X_A.toRawCopy2D();
+      this.y = y.toRawCopy1D();
+      this.W = MatrixFactory.zeros(indices.length, maxComponents);
+      this.P = MatrixFactory.zeros(indices.length, maxComponents);
+      this.Q = MatrixFactory.zeros(1, maxComponents);
+    }
 
-    return yhat;
+    /**
+     * Extracts the next component and deflates X and y (NIPALS regression
+     * mode, the inner loop converges after one iteration for a single
+     * response).
+     */
+    protected void addComponent() {
+      double eps = 1e-10;
+      if (MatrixHelper.norm2Squared(y) < eps) {
+	logger.warning("Y residual constant at iteration " + numComponents);
+	exhausted = true;
+	return;
+      }
+
+      // X weights
+      double[] w = new double[indices.length];
+      MatrixHelper.tmul(X, y, w);
+      MatrixHelper.scale(w, 1.0 / MatrixHelper.norm2Squared(y));
+      if (MatrixHelper.norm2Squared(w) < 1e-16) {
+	for (int j = 0; j < w.length; j++)
+	  w[j] += 1e-16;
+      }
+      MatrixHelper.scale(w, 1.0 / (Math.sqrt(MatrixHelper.norm2Squared(w)) + 1e-16));
+
+      // X scores
+      double[] t = new double[X.length];
+      MatrixHelper.mul(X, w, t);
+      double tt = MatrixHelper.norm2Squared(t);
+      if (tt < eps) {
+	logger.warning("X scores are null at component " + numComponents);
+	exhausted = true;
+	return;
+      }
+
+      // Deflate X and y
+      double[] p = new double[indices.length];
+      MatrixHelper.tmul(X, t, p);
+      MatrixHelper.scale(p, 1.0 / tt);
+      MatrixHelper.subOuter(X, t, p);
+      double q = 0.0;
+      for (int i = 0; i < t.length; i++)
+	q += y[i] * t[i];
+      q /= tt;
+      for (int i = 0; i < t.length; i++)
+	y[i] -= q * t[i];
+
+      W.setColumn(numComponents, MatrixFactory.fromColumn(w));
+      P.setColumn(numComponents, MatrixFactory.fromColumn(p));
+      Q.set(0, numComponents, q);
+      numComponents++;
+    }
+
+    /**
+     * Returns the regression coefficients of the first components.
+     *
+     * @param numComponents Number of components to use
+     * @return Coefficients (|A| x 1)
+     */
+    protected Matrix getCoef(int numComponents) {
+      if (numComponents == 0)
+	return MatrixFactory.zeros(indices.length, 1);
+      Matrix Wk = W.getColumns(0, numComponents);
+      Matrix Pk = P.getColumns(0, numComponents);
+      return Wk.mul(Pk.tmul(Wk).pseudoInverse()).mult(Q.getColumns(0, numComponents));
+    }
   }
 }
@@ -3,8 +3,10 @@ package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
 
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixHelper;
 
 import java.io.Serializable;
+import java.util.stream.IntStream;
 
 /**
  * Abstract kernel class. Implementations represent kernels that compute a dot product of two given
@@ -16,6 +18,35 @@ import java.io.Serializable;
 public abstract class AbstractKernel implements Serializable {
     private static final long serialVersionUID = 8820493548875411535L;
 
+    /** Assumed size of the L2 cache in bytes, used for tiling the kernel matrix */
+    protected static final int L2_CACHE_SIZE = 256 * 1024;
+
+    /** Minimum number of rows per tile */
+    protected static final int MIN_TILE_SIZE = 16;
+
+    /** Optional cache for Gram/distance matrices, shared between kernels */
+    protected transient KernelCache m_Cache;
+
+    /**
+     * Get the cache for Gram/distance matrices.
+     *
+     * @return Cache, null if not used
+     */
+    public KernelCache getCache() {
+        return m_Cache;
+    }
+
+    /**
+     * Set the cache for Gram/distance matrices. Sharing a cache between kernel
+     * instances avoids recomputing the matrices in parameter sweeps. The cache
+     * is not serialized with the kernel.
+     *
+     * @param cache Cache, null to not use a cache
+     */
+    public void setCache(KernelCache cache) {
+        m_Cache = cache;
+    }
+
     /**
      * Compute the dot product of the mapped x and y vectors in the kernel space, that is:
      * K(x,y) = phi(x)*phi(y)
@@ -34,17 +65,9 @@ public abstract class AbstractKernel implements Serializable {
      * @return Matrix K with K_i,j = K(x_i,y_j) = phi(x_i)*phi(y_j)
      */
     public Matrix applyMatrix(Matrix X, Matrix Y) {
-        Matrix result = MatrixFactory.zeros(X.numRows(), Y.numRows());
-        for (int i = 0; i < X.numRows(); i++) {
-            for (int j = 0; j < Y.numRows(); j++) {
-                Matrix rowI = X.getRow(i);
-                Matrix rowJ = Y.getRow(j);
-                double value = applyVector(rowI, rowJ);
-                result.set(i, j, value);
-            }
-        }
-        return result;
+        return applyMatrixTiled(X, Y, false);
     }
+
     /**
      * Create a matrix K that consists of entries K_i,j = K(x_i,x_j) = phi(x_i)*phi(x_j)
      *
@@ -52,17 +75,105 @@ public abstract class AbstractKernel implements Serializable {
      * @return Matrix K with K_i,j = K(x_i,x_j) = phi(x_i)*phi(x_j)
      */
     public Matrix applyMatrix(Matrix X) {
-        int n = X.numRows();
-        Matrix result = MatrixFactory.zeros(n, n);
-        for (int i = 0; i < X.numRows(); i++) {
-            for (int j = i; j < n; j++) {
-                Matrix rowI = X.getRow(i);
-                Matrix rowJ = X.getRow(j);
-                double value = applyVector(rowI, rowJ);
-                result.set(i, j, value);
-                result.set(j, i, value);
+        return applyMatrixTiled(X, X, true);
+    }
+
+    /**
+     * Get the Gram matrix X*Y^T, from the cache if available.
+     *
+     * @param X First matrix
+     * @param Y Second matrix
+     * @return Gram matrix, which may be modified by the caller
+     */
+    protected Matrix getGram(Matrix X, Matrix Y) {
+        if (m_Cache == null) {
+            return X.mult(Y);
+        }
+        return m_Cache.getGram(X, Y).copy();
+    }
+
+    /**
+     * Get the euclidean distances between the rows of X and Y, from the cache
+     * if available.
+     *
+     * @param X First matrix
+     * @param Y Second matrix
+     * @return Distance matrix, which may be modified by the caller
+     */
+    protected Matrix getDistances(Matrix X, Matrix Y) {
+        if (m_Cache == null) {
+            return MatrixHelper.euclideanDistance(X, Y, false);
+        }
+        return m_Cache.getDistances(X, Y).copy();
+    }
+
+    /**
+     * Get the number of rows per tile, such that the rows of two tiles fit
+     * into the L2 cache.
+     *
+     * @param numColumns Number of columns of the rows
+     * @return Number of rows per tile
+     */
+    protected int getTileSize(int numColumns) {
+        return Math.max(MIN_TILE_SIZE, L2_CACHE_SIZE / (2 * Double.BYTES * Math.max(1, numColumns)));
+    }
+
+    /**
+     * Create the kernel matrix K with K_i,j = K(x_i,y_j) tile by tile, with
+     * the tiles being processed in parallel. If the kernel matrix is symmetric,
+     * only the tiles of the upper triangle are computed and mirrored.
+     *
+     * @param X         First matrix
+     * @param Y         Second matrix
+     * @param symmetric Whether X and Y are the same matrix
+     * @return Matrix K with K_i,j = K(x_i,y_j) = phi(x_i)*phi(y_j)
+     */
+    protected Matrix applyMatrixTiled(Matrix X, Matrix Y, boolean symmetric) {
+        Matrix[] rowsX = getRows(X);
+        Matrix[] rowsY = symmetric ? rowsX : getRows(Y);
+        int numRows = rowsX.length;
+        // Column-major elements of the result, Matrix.set is not thread-safe
+        double[] result = new double[numRows * rowsY.length];
+        int tileSize = getTileSize(X.numColumns());
+        int numTilesX = (rowsX.length + tileSize - 1) / tileSize;
+        int numTilesY = (rowsY.length + tileSize - 1) / tileSize;
+
+        // Tiles write to disjoint elements of the result
+        IntStream.range(0, numTilesX * numTilesY).parallel().forEach(tile -> {
+            int tileX = tile / numTilesY;
+            int tileY = tile % numTilesY;
+            if (symmetric && tileY < tileX) {
+                return;
+            }
+
+            int endX = Math.min(rowsX.length, (tileX + 1) * tileSize);
+            int endY = Math.min(rowsY.length, (tileY + 1) * tileSize);
+            for (int i = tileX * tileSize; i < endX; i++) {
+                int startY = symmetric ? Math.max(i, tileY * tileSize) : tileY * tileSize;
+                for (int j = startY; j < endY; j++) {
+                    double value = applyVector(rowsX[i], rowsY[j]);
+                    result[i + j * numRows] = value;
+                    if (symmetric) {
+                        result[j + i * numRows] = value;
+                    }
+                }
             }
+        });
+
+        return MatrixFactory.fromColumnMajor(result, numRows);
+    }
+
+    /**
+     * Get all rows of the given matrix.
+     *
+     * @param X Matrix
+     * @return Rows of the matrix
+     */
+    protected Matrix[] getRows(Matrix X) {
+        Matrix[] rows = new Matrix[X.numRows()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = X.getRow(i);
         }
-        return result;
+        return rows;
     }
 }
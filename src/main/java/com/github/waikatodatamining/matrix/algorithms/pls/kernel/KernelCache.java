@@ -0,0 +1,427 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * KernelCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
+
+import com.github.waikatodatamining.matrix.core.LoggingObject;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixHelper;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Cache for the parameter-independent part of kernel matrices, i.e., the
+ * Gram matrix X*Y^T (linear and polynomial kernel) and the euclidean distance
+ * matrix (RBF kernel). Parameter sweeps over the same data then only pay for
+ * the elementwise transformation of the cached matrices.
+ * <br>
+ * Entries are keyed by the data (identical values, not just the same
+ * instance) and the type of matrix. The keys hold a snapshot of the data,
+ * hence modifying the data matrices afterwards does not affect the cache.
+ * Once the size of the cached matrices (including the data snapshots of the
+ * keys) exceeds the budget, the least recently used entries get evicted.
+ * <br>
+ * Matrices returned by the cache are shared and must not be modified.
+ * The cache is thread-safe: the lock is only held for looking up and
+ * registering entries, the matrices get computed outside of it. Concurrent
+ * requests for the same entry wait for the first one to compute it.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class KernelCache
+  extends LoggingObject {
+
+  private static final long serialVersionUID = 6384960154279563215L;
+
+  /** The default budget in bytes (256MB). */
+  public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+  /**
+   * The types of cached matrices.
+   */
+  public enum MatrixType {
+    /** X*Y^T */
+    GRAM,
+    /** Euclidean distances between the rows of X and Y */
+    DISTANCE
+  }
+
+  /**
+   * Key of a cache entry.
+   */
+  protected static class Key {
+
+    /** The number of rows of the first matrix. */
+    protected final int m_RowsX;
+
+    /** The number of rows of the second matrix. */
+    protected final int m_RowsY;
+
+    /** Snapshot of the values of the first matrix. */
+    protected final double[] m_X;
+
+    /** Snapshot of the values of the second matrix (same array if the same matrix). */
+    protected final double[] m_Y;
+
+    /** The type of matrix. */
+    protected final MatrixType m_Type;
+
+    /** The hash code, based on the values of the matrices. */
+    protected final int m_HashCode;
+
+    /**
+     * Initializes the key.
+     *
+     * @param X		the first matrix
+     * @param Y		the second matrix
+     * @param type	the type of matrix
+     */
+    protected Key(Matrix X, Matrix Y, MatrixType type) {
+      m_RowsX    = X.numRows();
+      m_RowsY    = Y.numRows();
+      m_X        = X.toRawCopy1D();
+      m_Y        = (Y == X) ? m_X : Y.toRawCopy1D();
+      m_Type     = type;
+      m_HashCode = 31 * (31 * (31 * (31 * m_RowsX + m_RowsY) + Arrays.hashCode(m_X)) + Arrays.hashCode(m_Y)) + type.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return m_HashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      Key	other;
+
+      if (!(obj instanceof Key))
+	return false;
+      other = (Key) obj;
+
+      return (m_HashCode == other.m_HashCode)
+	&& (m_Type == other.m_Type)
+	&& (m_RowsX == other.m_RowsX)
+	&& (m_RowsY == other.m_RowsY)
+	&& Arrays.equals(m_X, other.m_X)
+	&& Arrays.equals(m_Y, other.m_Y);
+    }
+
+    /**
+     * Returns the size in bytes of the data snapshots of the key.
+     *
+     * @return		the size
+     */
+    protected long size() {
+      long	result;
+
+      result = (long) m_X.length * Double.BYTES;
+      if (m_Y != m_X)
+	result += (long) m_Y.length * Double.BYTES;
+
+      return result;
+    }
+  }
+
+  /**
+   * A cache entry, computing its matrix once.
+   */
+  protected static class Entry {
+
+    /** The computation of the matrix. */
+    protected final FutureTask<Matrix> m_Task;
+
+    /** The size in bytes accounted for the entry, 0 while computing. */
+    protected long m_Size;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param task	the computation of the matrix
+     */
+    protected Entry(FutureTask<Matrix> task) {
+      m_Task = task;
+    }
+  }
+
+  /** The budget in bytes. */
+  protected long m_MaxSize;
+
+  /** The cached (or currently computed) matrices, in access order. */
+  protected LinkedHashMap<Key, Entry> m_Entries;
+
+  /** The current size in bytes. */
+  protected long m_Size;
+
+  /** The number of hits. */
+  protected long m_Hits;
+
+  /** The number of misses. */
+  protected long m_Misses;
+
+  /** The number of evicted entries. */
+  protected long m_Evictions;
+
+  /**
+   * Initializes the cache with the default budget.
+   *
+   * @see #DEFAULT_MAX_SIZE
+   */
+  public KernelCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Initializes the cache with the specified budget.
+   *
+   * @param maxSize	the budget in bytes
+   */
+  public KernelCache(long maxSize) {
+    if (maxSize < 0)
+      throw new IllegalArgumentException("Budget must be at least 0 but was " + maxSize);
+
+    m_MaxSize = maxSize;
+    m_Entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns the size of the matrix in bytes.
+   *
+   * @param M		the matrix
+   * @return		the size
+   */
+  protected static long sizeOf(Matrix M) {
+    return (long) M.numRows() * M.numColumns() * Double.BYTES;
+  }
+
+  /**
+   * Returns the budget.
+   *
+   * @return		the budget in bytes
+   */
+  public long getMaxSize() {
+    return m_MaxSize;
+  }
+
+  /**
+   * Returns the Gram matrix X*Y^T, computing it if not cached.
+   *
+   * @param X		the first matrix
+   * @param Y		the second matrix
+   * @return		the Gram matrix, must not be modified
+   */
+  public Matrix getGram(Matrix X, Matrix Y) {
+    return get(X, Y, MatrixType.GRAM);
+  }
+
+  /**
+   * Returns the euclidean distance matrix between the rows of X and Y,
+   * computing it if not cached.
+   *
+   * @param X		the first matrix
+   * @param Y		the second matrix
+   * @return		the distance matrix, must not be modified
+   */
+  public Matrix getDistances(Matrix X, Matrix Y) {
+    return get(X, Y, MatrixType.DISTANCE);
+  }
+
+  /**
+   * Returns the specified matrix, computing it if not cached.
+   *
+   * @param X		the first matrix
+   * @param Y		the second matrix
+   * @param type	the type of matrix
+   * @return		the matrix, must not be modified
+   */
+  public Matrix get(Matrix X, Matrix Y, MatrixType type) {
+    Key		key;
+    Entry	entry;
+    boolean	compute;
+    Matrix	result;
+
+    key     = new Key(X, Y, type);
+    compute = false;
+    synchronized (this) {
+      entry = m_Entries.get(key);
+      if (entry != null) {
+	m_Hits++;
+      }
+      else {
+	m_Misses++;
+	entry = new Entry(new FutureTask<>(() -> compute(X, Y, type)));
+	m_Entries.put(key, entry);
+	compute = true;
+      }
+    }
+
+    // compute outside the lock
+    if (compute)
+      entry.m_Task.run();
+
+    try {
+      result = entry.m_Task.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + type + " matrix", e);
+    }
+    catch (ExecutionException e) {
+      synchronized (this) {
+	if (m_Entries.get(key) == entry)
+	  m_Entries.remove(key);
+      }
+      if (e.getCause() instanceof RuntimeException)
+	throw (RuntimeException) e.getCause();
+      throw new IllegalStateException("Failed to compute " + type + " matrix", e.getCause());
+    }
+
+    if (compute) {
+      synchronized (this) {
+	// only account for the entry if it hasn't been evicted/cleared meanwhile
+	if (m_Entries.get(key) == entry) {
+	  entry.m_Size = sizeOf(result) + key.size();
+	  m_Size += entry.m_Size;
+	  evict();
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Computes the specified matrix.
+   *
+   * @param X		the first matrix
+   * @param Y		the second matrix
+   * @param type	the type of matrix
+   * @return		the matrix
+   */
+  protected Matrix compute(Matrix X, Matrix Y, MatrixType type) {
+    switch (type) {
+      case GRAM:
+	return X.mult(Y);
+      case DISTANCE:
+	return MatrixHelper.euclideanDistance(X, Y, false);
+      default:
+	throw new IllegalStateException("Unhandled matrix type: " + type);
+    }
+  }
+
+  /**
+   * Evicts the least recently used entries until the cache is within budget.
+   * Must be called while holding the lock.
+   */
+  protected void evict() {
+    Iterator<Map.Entry<Key, Entry>>	iter;
+    Map.Entry<Key, Entry>		entry;
+
+    iter = m_Entries.entrySet().iterator();
+    while ((m_Size > m_MaxSize) && iter.hasNext()) {
+      entry = iter.next();
+      // entries still being computed are not accounted for yet
+      if (!entry.getValue().m_Task.isDone())
+	continue;
+      iter.remove();
+      m_Size -= entry.getValue().m_Size;
+      m_Evictions++;
+      if (getDebug())
+	getLogger().info("Evicted " + entry.getKey().m_Type + " matrix, size now: " + m_Size);
+    }
+  }
+
+  /**
+   * Removes all entries. Does not reset the statistics.
+   */
+  public synchronized void clear() {
+    m_Entries.clear();
+    m_Size = 0;
+  }
+
+  /**
+   * Returns the number of cached matrices.
+   *
+   * @return		the number of entries
+   */
+  public synchronized int getNumEntries() {
+    return m_Entries.size();
+  }
+
+  /**
+   * Returns the current size of the cache.
+   *
+   * @return		the size in bytes
+   */
+  public synchronized long getSize() {
+    return m_Size;
+  }
+
+  /**
+   * Returns the number of requests that were served from the cache.
+   *
+   * @return		the number of hits
+   */
+  public synchronized long getHits() {
+    return m_Hits;
+  }
+
+  /**
+   * Returns the number of requests that required computing the matrix.
+   *
+   * @return		the number of misses
+   */
+  public synchronized long getMisses() {
+    return m_Misses;
+  }
+
+  /**
+   * Returns the number of entries evicted so far.
+   *
+   * @return		the number of evictions
+   */
+  public synchronized long getEvictions() {
+    return m_Evictions;
+  }
+
+  /**
+   * Returns the fraction of requests served from the cache.
+   *
+   * @return		the hit rate, 0 if no requests yet
+   */
+  public synchronized double getHitRate() {
+    if (m_Hits + m_Misses == 0)
+      return 0.0;
+    return (double) m_Hits / (m_Hits + m_Misses);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "entries=" + m_Entries.size()
+      + ", size=" + m_Size + "/" + m_MaxSize
+      + ", hits=" + m_Hits
+      + ", misses=" + m_Misses
+      + ", evictions=" + m_Evictions;
+  }
+}
@@ -22,7 +22,7 @@ public class LinearKernel extends AbstractKernel {
 
   @Override
   public Matrix applyMatrix(Matrix X, Matrix Y) {
-    return X.mul(Y.transpose());
+    return getGram(X, Y);
   }
 
   @Override
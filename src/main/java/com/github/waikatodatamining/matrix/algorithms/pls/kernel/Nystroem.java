@@ -0,0 +1,298 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Nystroem.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
+
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.algorithm.UnsupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+
+import java.util.Random;
+
+/**
+ * Nyström approximation of a kernel. Maps the data into an explicit feature
+ * space with at most m dimensions, based on m landmark rows of the
+ * configuration data, such that phi(x)*phi(y) approximates K(x,y).
+ * <br>
+ * phi(x) = K(x, L) * V * D^(-1/2), with K(L, L) = V * D * V^T
+ * <br>
+ * See here:
+ * <a href="https://papers.nips.cc/paper/1866-using-the-nystrom-method-to-speed-up-kernel-machines.pdf">Using
+ * the Nyström Method to Speed Up Kernel Machines</a>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Nystroem
+  extends UnsupervisedMatrixAlgorithm {
+
+  private static final long serialVersionUID = 2968384307208283218L;
+
+  /** Relative threshold below which eigenvalues of K(L, L) are discarded. */
+  public static final double EIGENVALUE_THRESHOLD = 1e-10;
+
+  /**
+   * How to choose the landmark rows.
+   */
+  public enum LandmarkSelection {
+    /** Uniformly at random. */
+    UNIFORM,
+    /** Via k-means++ seeding, i.e., proportional to the squared distance to
+     * the closest landmark chosen so far. */
+    KMEANS_PLUS_PLUS
+  }
+
+  /** The kernel to approximate. */
+  protected AbstractKernel m_Kernel = new RBFKernel();
+
+  /** The number of landmarks. */
+  protected int m_NumLandmarks = 100;
+
+  /** How to choose the landmarks. */
+  protected LandmarkSelection m_LandmarkSelection = LandmarkSelection.UNIFORM;
+
+  /** The seed for choosing the landmarks. */
+  protected long m_Seed = 1;
+
+  /** The landmark rows. */
+  protected Matrix m_Landmarks;
+
+  /** The normalization of the landmark kernel values, V * D^(-1/2). */
+  protected Matrix m_Normalization;
+
+  public AbstractKernel getKernel() {
+    return m_Kernel;
+  }
+
+  public void setKernel(AbstractKernel kernel) {
+    m_Kernel = kernel;
+    reset();
+  }
+
+  public int getNumLandmarks() {
+    return m_NumLandmarks;
+  }
+
+  public void setNumLandmarks(int value) {
+    if (value < 1) {
+      getLogger().warning("Number of landmarks must be at least 1 but was " + value + ".");
+    }
+    else {
+      m_NumLandmarks = value;
+      reset();
+    }
+  }
+
+  public LandmarkSelection getLandmarkSelection() {
+    return m_LandmarkSelection;
+  }
+
+  public void setLandmarkSelection(LandmarkSelection value) {
+    m_LandmarkSelection = value;
+    reset();
+  }
+
+  public long getSeed() {
+    return m_Seed;
+  }
+
+  public void setSeed(long value) {
+    m_Seed = value;
+    reset();
+  }
+
+  /**
+   * Returns the landmark rows.
+   *
+   * @return		the landmarks, null if not configured
+   */
+  public Matrix getLandmarks() {
+    return m_Landmarks;
+  }
+
+  @Override
+  protected void doReset() {
+    m_Landmarks     = null;
+    m_Normalization = null;
+  }
+
+  /**
+   * Chooses the landmark rows uniformly at random, without replacement.
+   *
+   * @param X		the data to choose from
+   * @param numLandmarks	the number of landmarks
+   * @param random	the random number generator to use
+   * @return		the row indices
+   */
+  protected int[] selectUniform(Matrix X, int numLandmarks, Random random) {
+    int[]	indices;
+    int[]	result;
+    int		i;
+    int		j;
+    int		tmp;
+
+    indices = new int[X.numRows()];
+    for (i = 0; i < indices.length; i++)
+      indices[i] = i;
+
+    // partial Fisher-Yates shuffle
+    result = new int[numLandmarks];
+    for (i = 0; i < numLandmarks; i++) {
+      j          = i + random.nextInt(indices.length - i);
+      tmp        = indices[i];
+      indices[i] = indices[j];
+      indices[j] = tmp;
+      result[i]  = indices[i];
+    }
+
+    return result;
+  }
+
+  /**
+   * Chooses the landmark rows via k-means++ seeding: the first landmark is
+   * chosen uniformly at random, each further one with a probability
+   * proportional to its squared distance to the closest landmark so far.
+   *
+   * @param X		the data to choose from
+   * @param numLandmarks	the number of landmarks
+   * @param random	the random number generator to use
+   * @return		the row indices
+   */
+  protected int[] selectKMeansPlusPlus(Matrix X, int numLandmarks, Random random) {
+    int[]	result;
+    double[]	minDists;
+    double	sum;
+    double	dist;
+    double	diff;
+    double	threshold;
+    int		numRows;
+    int		last;
+    int		i;
+    int		j;
+    int		n;
+
+    numRows  = X.numRows();
+    minDists = new double[numRows];
+    for (i = 0; i < numRows; i++)
+      minDists[i] = Double.POSITIVE_INFINITY;
+
+    result    = new int[numLandmarks];
+    result[0] = random.nextInt(numRows);
+    for (n = 1; n < numLandmarks; n++) {
+      if (m_Stopped)
+	throw new StoppedException();
+
+      // update the distances to the closest landmark with the last one chosen
+      last = result[n - 1];
+      sum  = 0.0;
+      for (i = 0; i < numRows; i++) {
+	dist = 0.0;
+	for (j = 0; j < X.numColumns(); j++) {
+	  diff  = X.get(i, j) - X.get(last, j);
+	  dist += diff * diff;
+	}
+	if (dist < minDists[i])
+	  minDists[i] = dist;
+	sum += minDists[i];
+      }
+
+      // all remaining rows are duplicates of landmarks
+      if (sum == 0.0) {
+	int[] landmarks = new int[n];
+	System.arraycopy(result, 0, landmarks, 0, n);
+	return landmarks;
+      }
+
+      threshold = random.nextDouble() * sum;
+      for (i = 0; i < numRows - 1; i++) {
+	threshold -= minDists[i];
+	if (threshold < 0)
+	  break;
+      }
+      result[n] = i;
+    }
+
+    return result;
+  }
+
+  @Override
+  protected void doConfigure(Matrix X) {
+    Random	random;
+    int[]	indices;
+    Matrix	K;
+    Matrix	V;
+    double[]	eigenvalues;
+    double	max;
+    int		numKept;
+    int		i;
+    int		j;
+    int		n;
+
+    random = new Random(m_Seed);
+    n      = Math.min(m_NumLandmarks, X.numRows());
+    switch (m_LandmarkSelection) {
+      case UNIFORM:
+	indices = selectUniform(X, n, random);
+	break;
+      case KMEANS_PLUS_PLUS:
+	indices = selectKMeansPlusPlus(X, n, random);
+	break;
+      default:
+	throw new IllegalStateException("Unhandled landmark selection: " + m_LandmarkSelection);
+    }
+    m_Landmarks = X.getRows(indices).copy();
+
+    // K(L, L) = V * D * V^T, discard (numerically) zero eigenvalues
+    K           = m_Kernel.applyMatrix(m_Landmarks);
+    V           = K.getEigenvalueDecompositionV();
+    eigenvalues = K.getEigenvalues().toRawCopy1D();
+    max         = 0.0;
+    for (double eigenvalue : eigenvalues)
+      max = Math.max(max, eigenvalue);
+    numKept = 0;
+    for (double eigenvalue : eigenvalues) {
+      if (eigenvalue > max * EIGENVALUE_THRESHOLD)
+	numKept++;
+    }
+
+    m_Normalization = MatrixFactory.zeros(V.numRows(), numKept);
+    n = 0;
+    for (j = 0; j < eigenvalues.length; j++) {
+      if (eigenvalues[j] <= max * EIGENVALUE_THRESHOLD)
+	continue;
+      for (i = 0; i < V.numRows(); i++)
+	m_Normalization.set(i, n, V.get(i, j) / Math.sqrt(eigenvalues[j]));
+      n++;
+    }
+
+    if (getDebug())
+      getLogger().info("Landmarks: " + m_Landmarks.numRows() + ", features: " + numKept);
+  }
+
+  @Override
+  protected Matrix doTransform(Matrix X) {
+    return m_Kernel.applyMatrix(X, m_Landmarks).mul(m_Normalization);
+  }
+
+  @Override
+  public boolean isNonInvertible() {
+    return true;
+  }
+}
@@ -81,7 +81,7 @@ public class PolyKernel extends AbstractKernel {
     if (Double.isNaN(m_Gamma)) {
       m_Gamma = 1.0 / X.numColumns();
     }
-    Matrix result = X.mul(Y.transpose());
+    Matrix result = getGram(X, Y);
     result = result.mul(m_Gamma);
     result = result.add(m_Coef0);
     result = result.powElementwise(m_Degree);
@@ -1,6 +1,9 @@
 package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
 
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+
+import java.util.stream.IntStream;
 
 /**
  * Radial Basis Function Kernel.
@@ -39,6 +42,65 @@ public class RBFKernel extends AbstractKernel {
         this.m_Gamma = gamma;
     }
 
+    /**
+     * Create the kernel matrix from the euclidean distances, which are computed
+     * via ||x||^2 + ||y||^2 - 2*x^T*y with a single matrix multiplication.
+     *
+     * @param X First matrix
+     * @param Y Second matrix
+     * @return Matrix K with K_i,j = K(x_i,y_j) = phi(x_i)*phi(y_j)
+     */
+    @Override
+    public Matrix applyMatrix(Matrix X, Matrix Y) {
+        return applyMatrixDistances(X, Y, false);
+    }
+
+    /**
+     * Create the symmetric kernel matrix from the euclidean distances, only
+     * evaluating the upper triangle.
+     *
+     * @param X Matrix
+     * @return Matrix K with K_i,j = K(x_i,x_j) = phi(x_i)*phi(x_j)
+     */
+    @Override
+    public Matrix applyMatrix(Matrix X) {
+        return applyMatrixDistances(X, X, true);
+    }
+
+    /**
+     * Create the kernel matrix from the euclidean distances, with the columns
+     * being processed in parallel.
+     *
+     * @param X         First matrix
+     * @param Y         Second matrix
+     * @param symmetric Whether X and Y are the same matrix
+     * @return Matrix K with K_i,j = K(x_i,y_j) = phi(x_i)*phi(y_j)
+     */
+    protected Matrix applyMatrixDistances(Matrix X, Matrix Y, boolean symmetric) {
+        if (Double.isNaN(m_Gamma)) {
+            m_Gamma = 1.0 / X.numColumns();
+        }
+        double gamma = m_Gamma;
+        double[][] distances = getDistances(X, Y).toRawCopy2D();
+        int numRows = X.numRows();
+        // Column-major elements of the result, Matrix.set is not thread-safe
+        double[] result = new double[numRows * Y.numRows()];
+
+        // Column j writes column j and, if symmetric, the lower triangle of row j
+        IntStream.range(0, Y.numRows()).parallel().forEach(j -> {
+            int end = symmetric ? j + 1 : numRows;
+            for (int i = 0; i < end; i++) {
+                double value = StrictMath.exp(-1 * gamma * distances[i][j]);
+                result[i + j * numRows] = value;
+                if (symmetric) {
+                    result[j + i * numRows] = value;
+                }
+            }
+        });
+
+        return MatrixFactory.fromColumnMajor(result, numRows);
+    }
+
     @Override
     public double applyVector(Matrix x, Matrix y) {
         double norm2 = x.sub(y).norm2();
@@ -0,0 +1,151 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RandomFourierFeatures.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
+
+import com.github.waikatodatamining.matrix.core.algorithm.UnsupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+
+import java.util.Random;
+
+/**
+ * Random Fourier features approximating the {@link RBFKernel}. Maps the data
+ * into an explicit m-dimensional feature space such that phi(x)*phi(y)
+ * approximates K(x,y):
+ * <br>
+ * phi(x) = sqrt(2/m) * cos(W^T * x + b)
+ * <br>
+ * The frequencies W are drawn from the Fourier transform of the kernel. As
+ * {@link RBFKernel#applyVector(Matrix, Matrix)} uses the (non-squared)
+ * euclidean distance, i.e., K(x,y) = exp(-gamma*||x - y||), this is a
+ * multivariate Cauchy distribution with scale gamma. The offsets b are drawn
+ * uniformly from [0, 2*pi).
+ * <br>
+ * See here:
+ * <a href="https://people.eecs.berkeley.edu/~brecht/papers/07.rah.rec.nips.pdf">Random
+ * Features for Large-Scale Kernel Machines</a>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RandomFourierFeatures
+  extends UnsupervisedMatrixAlgorithm {
+
+  private static final long serialVersionUID = -1495296372580281187L;
+
+  /** The gamma parameter of the RBF kernel, NaN for 1/n_features. */
+  protected double m_Gamma = 1;
+
+  /** The number of features. */
+  protected int m_NumFeatures = 100;
+
+  /** The seed for drawing the frequencies and offsets. */
+  protected long m_Seed = 1;
+
+  /** The frequencies (n_columns x n_features). */
+  protected Matrix m_Frequencies;
+
+  /** The offsets. */
+  protected double[] m_Offsets;
+
+  public double getGamma() {
+    return m_Gamma;
+  }
+
+  public void setGamma(double value) {
+    m_Gamma = value;
+    reset();
+  }
+
+  public int getNumFeatures() {
+    return m_NumFeatures;
+  }
+
+  public void setNumFeatures(int value) {
+    if (value < 1) {
+      getLogger().warning("Number of features must be at least 1 but was " + value + ".");
+    }
+    else {
+      m_NumFeatures = value;
+      reset();
+    }
+  }
+
+  public long getSeed() {
+    return m_Seed;
+  }
+
+  public void setSeed(long value) {
+    m_Seed = value;
+    reset();
+  }
+
+  @Override
+  protected void doReset() {
+    m_Frequencies = null;
+    m_Offsets     = null;
+  }
+
+  @Override
+  protected void doConfigure(Matrix X) {
+    Random	random;
+    double	gamma;
+    double	scale;
+    int		i;
+    int		j;
+
+    gamma = m_Gamma;
+    if (Double.isNaN(gamma))
+      gamma = 1.0 / X.numColumns();
+
+    random        = new Random(m_Seed);
+    m_Frequencies = MatrixFactory.zeros(X.numColumns(), m_NumFeatures);
+    m_Offsets     = new double[m_NumFeatures];
+    for (j = 0; j < m_NumFeatures; j++) {
+      // multivariate Cauchy: gamma * z / |g|, with z ~ N(0, I), g ~ N(0, 1)
+      scale = gamma / Math.abs(random.nextGaussian());
+      for (i = 0; i < X.numColumns(); i++)
+	m_Frequencies.set(i, j, scale * random.nextGaussian());
+      m_Offsets[j] = 2 * Math.PI * random.nextDouble();
+    }
+  }
+
+  @Override
+  protected Matrix doTransform(Matrix X) {
+    Matrix	result;
+    double	factor;
+    int		i;
+    int		j;
+
+    factor = Math.sqrt(2.0 / m_NumFeatures);
+    result = X.mul(m_Frequencies);
+    for (j = 0; j < result.numColumns(); j++) {
+      for (i = 0; i < result.numRows(); i++)
+	result.set(i, j, factor * Math.cos(result.get(i, j) + m_Offsets[j]));
+    }
+
+    return result;
+  }
+
+  @Override
+  public boolean isNonInvertible() {
+    return true;
+  }
+}
@@ -20,6 +20,12 @@
 
 package com.github.waikatodatamining.matrix.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.lang.reflect.Array;
 
 /**
@@ -464,6 +470,35 @@ public class Utils {
     return arrayToString(array, false);
   }
 
+  /**
+   * Creates a deep copy of the given object via serialization.
+   *
+   * @param obj		the object to copy
+   * @param <T>		the type of the object
+   * @return		the copy
+   */
+  public static <T extends Serializable> T deepCopy(T obj) {
+    ByteArrayOutputStream	bos;
+    ObjectOutputStream		oos;
+    ObjectInputStream		ois;
+    @SuppressWarnings("unchecked")
+    T				result;
+
+    try {
+      bos = new ByteArrayOutputStream();
+      oos = new ObjectOutputStream(bos);
+      oos.writeObject(obj);
+      oos.close();
+      ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+      result = (T) ois.readObject();
+      ois.close();
+      return result;
+    }
+    catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Failed to copy object: " + obj.getClass().getName(), e);
+    }
+  }
+
   /**
    * Normalises a value against a given mean/standard deviation.
    *
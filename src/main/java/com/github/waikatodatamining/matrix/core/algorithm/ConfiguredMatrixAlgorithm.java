@@ -58,12 +58,13 @@ abstract class ConfiguredMatrixAlgorithm
 
   /**
    * Allows sub-classes to set the configured flag
-   * once they have been configured. Package-private
-   * so that algorithms themselves don't set this, but
-   * the specific configuration sub-types do on their
-   * behalf.
+   * once they have been configured. Usually the specific
+   * configuration sub-types do this on behalf of the
+   * algorithms, but algorithms offering an additional
+   * configuration entry point (e.g. from precomputed
+   * statistics) can flag themselves as configured.
    */
-  final void setConfigured() {
+  protected final void setConfigured() {
     m_Configured = true;
   }
 
@@ -10,18 +10,25 @@ import org.ojalgo.array.Array1D;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.decomposition.Eigenvalue;
 import org.ojalgo.matrix.decomposition.Eigenvalue.Eigenpair;
+import org.ojalgo.matrix.decomposition.LU;
 import org.ojalgo.matrix.decomposition.QR;
 import org.ojalgo.matrix.decomposition.SingularValue;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.matrix.task.InverterTask;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.ElementView2D;
 import org.ojalgo.type.context.NumberContext;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,23 +53,33 @@ public class Matrix implements Serializable {
 
   private static final long serialVersionUID = -4756923165691071163L;
 
-  /** Underlying data store */
-  protected MatrixStore<Double> data;
+  /** Underlying data store, serialized via {@link #writeObject(ObjectOutputStream)} */
+  protected transient MatrixStore<Double> data;
 
   /**
    * Eigenvalue decomposition. Get reset after {@link #data} has changed.
    */
-  protected Eigenvalue<Double> eigenvalueDecomposition;
+  protected transient Eigenvalue<Double> eigenvalueDecomposition;
 
   /**
    * SingularValue decomposition. Get reset after {@link #data} has changed.
    */
-  protected SingularValue<Double> singularvalueDecomposition;
+  protected transient SingularValue<Double> singularvalueDecomposition;
 
   /**
    * QR decomposition decomposition. Get reset after {@link #data} has changed.
    */
-  protected QR<Double> qrDecomposition;
+  protected transient QR<Double> qrDecomposition;
+
+  /**
+   * LU decomposition. Get reset after {@link #data} has changed.
+   */
+  protected transient LU<Double> luDecomposition;
+
+  /**
+   * Cholesky decomposition. Get reset after {@link #data} has changed.
+   */
+  protected transient Cholesky<Double> choleskyDecomposition;
 
   /**
    * Constructor for creating a new matrix wrapper from another matrix store.
@@ -73,6 +90,41 @@ public class Matrix implements Serializable {
     this.data = data;
   }
 
+  /**
+   * Writes the dimensions and the values in column-major order, as the
+   * ojAlgo store is not serializable. The decompositions don't get written.
+   *
+   * @param out Stream to write to
+   * @throws IOException If writing fails
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeInt(numRows());
+    out.writeInt(numColumns());
+    out.writeObject(columnMajor(data));
+  }
+
+  /**
+   * Reads the dimensions and the values written by
+   * {@link #writeObject(ObjectOutputStream)}.
+   *
+   * @param in Stream to read from
+   * @throws IOException            If reading fails
+   * @throws ClassNotFoundException If a class cannot be found
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    int rows = in.readInt();
+    int columns = in.readInt();
+    double[] values = (double[]) in.readObject();
+    if (values.length != rows * columns)
+      throw new InvalidObjectException("Expected " + (rows * columns) + " values, found: " + values.length);
+    if (values.length == 0)
+      data = Primitive64Store.FACTORY.make(rows, columns);
+    else
+      data = Primitive64Store.wrap(values, rows);
+  }
+
   /**
    * Get the submatrix, given by the row and column indices.
    *
@@ -138,6 +190,17 @@ public class Matrix implements Serializable {
     return getSubMatrix(rowStart, rowEndExclusive, 0, numColumns());
   }
 
+  /**
+   * Get a view on the given rows. No data is copied, modifying the view
+   * (e.g. via {@link #set(int, int, double)}) first creates a copy.
+   *
+   * @param rows Row indices
+   * @return View on the selected rows of the current matrix
+   */
+  public Matrix getRows(int[] rows) {
+    return create(data.logical().rows(rows).get());
+  }
+
   /**
    * Get the submatrix, given by the column intervals.
    *
@@ -149,6 +212,17 @@ public class Matrix implements Serializable {
     return getSubMatrix(0, numRows(), columnStart, columnEndExclusive);
   }
 
+  /**
+   * Get a view on the given columns. No data is copied, modifying the view
+   * (e.g. via {@link #set(int, int, double)}) first creates a copy.
+   *
+   * @param columns Column indices
+   * @return View on the selected columns of the current matrix
+   */
+  public Matrix getColumns(int[] columns) {
+    return create(data.logical().columns(columns).get());
+  }
+
   /**
    * Get the eigenvectors of this matrix, sorted according to their descending
    * eigenvalues.
@@ -318,6 +392,26 @@ public class Matrix implements Serializable {
     }
   }
 
+  /**
+   * Initialize the LU decomposition.
+   */
+  protected void makeLUDecomposition() {
+    if (luDecomposition == null) {
+      luDecomposition = LU.PRIMITIVE.make(data);
+      luDecomposition.decompose(data);
+    }
+  }
+
+  /**
+   * Initialize the Cholesky decomposition.
+   */
+  protected void makeCholeskyDecomposition() {
+    if (choleskyDecomposition == null) {
+      choleskyDecomposition = Cholesky.PRIMITIVE.make(data);
+      choleskyDecomposition.decompose(data);
+    }
+  }
+
   /**
    * Get the U matrix of the SVD decomposition of this matrix.
    *
@@ -447,6 +541,124 @@ public class Matrix implements Serializable {
     return create(data.multiply(other.data));
   }
 
+  /**
+   * Multiply the transpose of this matrix with another matrix, i.e.,
+   * this^T * other. Equivalent to this.t().mul(other) but without
+   * materialising the transpose: each result entry is the dot product of two
+   * contiguous columns.
+   *
+   * @param other Multiplicand
+   * @return Matrix multiplication result
+   */
+  public Matrix tmul(Matrix other) {
+    // Check for matching shapes
+    if (this.numRows() != other.numRows()) {
+      MatrixHelper.throwInvalidShapes(this, other);
+    }
+    int m = numRows();
+    int n = numColumns();
+    int p = other.numColumns();
+    double[] a = columnMajor(data);
+    double[] b = columnMajor(other.data);
+    double[] result = new double[n * p];
+    for (int k = 0; k < p; k++) {
+      for (int j = 0; j < n; j++) {
+	result[j + k * n] = columnDot(a, j * m, b, k * m, m);
+      }
+    }
+    return create(Primitive64Store.wrap(result, n));
+  }
+
+  /**
+   * Multiply this matrix with the transpose of another matrix, i.e.,
+   * this * other^T. Equivalent to this.mul(other.t()) but without
+   * materialising the transpose: the result columns are accumulated from
+   * contiguous columns of this matrix.
+   *
+   * @param other Multiplicand
+   * @return Matrix multiplication result
+   */
+  public Matrix mult(Matrix other) {
+    // Check for matching shapes
+    if (this.numColumns() != other.numColumns()) {
+      MatrixHelper.throwInvalidShapes(this, other);
+    }
+    int m = numRows();
+    int n = numColumns();
+    int p = other.numRows();
+    double[] a = columnMajor(data);
+    double[] b = columnMajor(other.data);
+    double[] result = new double[m * p];
+    for (int j = 0; j < n; j++) {
+      for (int k = 0; k < p; k++) {
+	double bkj = b[k + j * p];
+	int offset = k * m;
+	int aOffset = j * m;
+	for (int i = 0; i < m; i++) {
+	  result[offset + i] += a[aOffset + i] * bkj;
+	}
+      }
+    }
+    return create(Primitive64Store.wrap(result, m));
+  }
+
+  /**
+   * Compute the Gram matrix of the columns, i.e., this^T * this. Only the
+   * upper triangle gets computed, the lower triangle is mirrored, which makes
+   * the result exactly symmetric.
+   *
+   * @return Gram matrix
+   */
+  public Matrix gram() {
+    int m = numRows();
+    int n = numColumns();
+    double[] a = columnMajor(data);
+    double[] result = new double[n * n];
+    for (int k = 0; k < n; k++) {
+      for (int j = 0; j <= k; j++) {
+	double dot = columnDot(a, j * m, a, k * m, m);
+	result[j + k * n] = dot;
+	result[k + j * n] = dot;
+      }
+    }
+    return create(Primitive64Store.wrap(result, n));
+  }
+
+  /**
+   * Returns the elements of the store in column-major order. Physical stores
+   * are returned as is, logical ones (views, transposes) get copied once.
+   *
+   * @param store The store to access
+   * @return The column-major elements, not to be modified
+   */
+  protected static double[] columnMajor(MatrixStore<Double> store) {
+    if (store instanceof Primitive64Store) {
+      Primitive64Store physical = (Primitive64Store) store;
+      if (physical.data.length == physical.count()) {
+	return physical.data;
+      }
+    }
+    return Primitive64Store.FACTORY.copy(store).data;
+  }
+
+  /**
+   * Dot product of two columns stored in column-major arrays.
+   *
+   * @param a       First array
+   * @param aOffset Start of the column in the first array
+   * @param b       Second array
+   * @param bOffset Start of the column in the second array
+   * @param length  Number of rows
+   * @return Dot product
+   */
+  protected static double columnDot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+    double sum = 0.0;
+    for (int i = 0; i < length; i++) {
+      sum += a[aOffset + i] * b[bOffset + i];
+    }
+    return sum;
+  }
+
   /**
    * Check if the matrix multiplication between this and the other matrix can be
    * done regarding shapes.
@@ -582,16 +794,20 @@ public class Matrix implements Serializable {
 	"shape: " + vector.shapeString());
     }
 
-    Matrix result = copy();
-
-    for (int j = 0; j < numColumns(); j++) {
-      Matrix col = getColumn(j);
-      double scalar = vector.get(j, 0);
-      Matrix scaledCol = col.mul(scalar);
-      result.setColumn(j, scaledCol);
+    int m = numRows();
+    int n = numColumns();
+    double[] a = columnMajor(data);
+    double[] v = vector.data.toRawCopy1D();
+    double[] result = new double[m * n];
+    for (int j = 0; j < n; j++) {
+      double scalar = v[j];
+      int offset = j * m;
+      for (int i = 0; i < m; i++) {
+	result[offset + i] = a[offset + i] * scalar;
+      }
     }
 
-    return result;
+    return create(Primitive64Store.wrap(result, m));
   }
 
   /**
@@ -612,16 +828,19 @@ public class Matrix implements Serializable {
 	"shape: " + vector.shapeString());
     }
 
-    Matrix result = MatrixFactory.zerosLike(this);
-
-    for (int i = 0; i < numRows(); i++) {
-      Matrix row = getRow(i);
-      double scalar = vector.get(i, 0);
-      Matrix scaledRow = row.mul(scalar);
-      result.setRow(i, scaledRow);
+    int m = numRows();
+    int n = numColumns();
+    double[] a = columnMajor(data);
+    double[] v = vector.data.toRawCopy1D();
+    double[] result = new double[m * n];
+    for (int j = 0; j < n; j++) {
+      int offset = j * m;
+      for (int i = 0; i < m; i++) {
+	result[offset + i] = a[offset + i] * v[i];
+      }
     }
 
-    return result;
+    return create(Primitive64Store.wrap(result, m));
   }
 
 
@@ -644,16 +863,20 @@ public class Matrix implements Serializable {
 	"shape: " + vector.shapeString());
     }
 
-    Matrix result = copy();
-
-    for (int j = 0; j < numColumns(); j++) {
-      Matrix col = getColumn(j);
-      double scalar = vector.get(j, 0);
-      Matrix scaledCol = col.add(scalar);
-      result.setColumn(j, scaledCol);
+    int m = numRows();
+    int n = numColumns();
+    double[] a = columnMajor(data);
+    double[] v = vector.data.toRawCopy1D();
+    double[] result = new double[m * n];
+    for (int j = 0; j < n; j++) {
+      double scalar = v[j];
+      int offset = j * m;
+      for (int i = 0; i < m; i++) {
+	result[offset + i] = a[offset + i] + scalar;
+      }
     }
 
-    return result;
+    return create(Primitive64Store.wrap(result, m));
   }
 
 
@@ -899,6 +1122,123 @@ public class Matrix implements Serializable {
     }
   }
 
+  /**
+   * Solve the linear system this * X = rhs for a square matrix without
+   * forming the inverse, i.e., the same as inverse().mul(rhs). The LU
+   * decomposition is cached, hence solving for several right-hand sides only
+   * factorises this matrix once.
+   *
+   * @param rhs Right-hand side(s)
+   * @return Solution
+   * @throws MatrixInversionException if this matrix is singular
+   */
+  public Matrix solve(Matrix rhs) {
+    // Check for matching shapes
+    if (this.numRows() != this.numColumns() || this.numRows() != rhs.numRows()) {
+      MatrixHelper.throwInvalidShapes(this, rhs);
+    }
+
+    makeLUDecomposition();
+    if (!luDecomposition.isSolvable()) {
+      throw new MatrixInversionException("Matrix is singular: " + shapeString());
+    }
+    return create(luDecomposition.getSolution(rhs.data));
+  }
+
+  /**
+   * Solve the linear system this * X = rhs for a symmetric positive definite
+   * matrix (e.g., a regularised Gram matrix) via the cached Cholesky
+   * decomposition. If the matrix turns out not to be positive definite
+   * (numerically), the least-squares solution gets returned instead.
+   *
+   * @param rhs Right-hand side(s)
+   * @return Solution
+   * @see #lstsq(Matrix)
+   */
+  public Matrix solveSymmetricPositiveDefinite(Matrix rhs) {
+    // Check for matching shapes
+    if (this.numRows() != this.numColumns() || this.numRows() != rhs.numRows()) {
+      MatrixHelper.throwInvalidShapes(this, rhs);
+    }
+
+    makeCholeskyDecomposition();
+    if (!choleskyDecomposition.isSolvable()) {
+      return lstsq(rhs);
+    }
+    return create(choleskyDecomposition.getSolution(rhs.data));
+  }
+
+  /**
+   * Solve the linear system this * X = rhs for a diagonal matrix, i.e., the
+   * rows of rhs get divided by the diagonal elements. Off-diagonal elements
+   * are ignored.
+   *
+   * @param rhs Right-hand side(s)
+   * @return Solution
+   * @throws MatrixInversionException if a diagonal element is zero
+   */
+  public Matrix solveDiagonal(Matrix rhs) {
+    // Check for matching shapes
+    if (this.numRows() != this.numColumns() || this.numRows() != rhs.numRows()) {
+      MatrixHelper.throwInvalidShapes(this, rhs);
+    }
+
+    Matrix result = rhs.copy();
+    for (int i = 0; i < numRows(); i++) {
+      double d = get(i, i);
+      if (d == 0.0) {
+	throw new MatrixInversionException("Zero on the diagonal at " + i + ": " + shapeString());
+      }
+      for (int j = 0; j < rhs.numColumns(); j++) {
+	result.set(i, j, rhs.get(i, j) / d);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Solve the linear least-squares problem min ||this * X - rhs|| without
+   * forming an inverse. Full-rank tall (or square) matrices get solved via
+   * the QR decomposition, otherwise the minimum-norm solution gets computed
+   * from the singular value decomposition, i.e., the same solution as
+   * pseudoInverse().mul(rhs). The decomposition is cached, hence solving
+   * for several right-hand sides only factorises this matrix once.
+   *
+   * @param rhs Right-hand side(s)
+   * @return Least-squares solution
+   */
+  public Matrix lstsq(Matrix rhs) {
+    // Check for matching shapes
+    if (this.numRows() != rhs.numRows()) {
+      MatrixHelper.throwInvalidShapes(this, rhs);
+    }
+
+    if (numRows() >= numColumns()) {
+      makeQRDecomposition();
+      if (qrDecomposition.isFullRank()) {
+	return create(qrDecomposition.getSolution(rhs.data));
+      }
+    }
+
+    // Minimum-norm solution V * S^+ * U^T * rhs, ignoring singular values
+    // at the level of rounding errors
+    makeSingularValueDecomposition();
+    double[] s = singularvalueDecomposition.getSingularValues().toRawCopy1D();
+    double max = 0.0;
+    for (double value : s) {
+      max = Math.max(max, value);
+    }
+    double tol = max * Math.max(numRows(), numColumns()) * Math.ulp(1.0);
+    PhysicalStore<Double> UtB = singularvalueDecomposition.getU().transpose().multiply(rhs.data).copy();
+    for (int i = 0; i < s.length; i++) {
+      double factor = s[i] > tol ? 1.0 / s[i] : 0.0;
+      for (int j = 0; j < UtB.countColumns(); j++) {
+	UtB.set(i, j, UtB.doubleValue(i, j) * factor);
+      }
+    }
+    return create(singularvalueDecomposition.getV().multiply(UtB));
+  }
+
   /**
    * Create a duplicate of this matrix.
    *
@@ -989,6 +1329,8 @@ public class Matrix implements Serializable {
     this.eigenvalueDecomposition = null;
     this.singularvalueDecomposition = null;
     this.qrDecomposition = null;
+    this.luDecomposition = null;
+    this.choleskyDecomposition = null;
   }
 
   /**
@@ -191,6 +191,18 @@ public class MatrixFactory {
     return new Matrix(FACTORY.columns(vector));
   }
 
+  /**
+   * Wrap the given elements in column-major order as a matrix, without
+   * copying them. The array must not be modified afterwards.
+   *
+   * @param data Elements in column-major order (rows * columns)
+   * @param rows Number of rows
+   * @return Wrapped elements
+   */
+  public static Matrix fromColumnMajor(double[] data, int rows) {
+    return new Matrix(Primitive64Store.wrap(data, rows));
+  }
+
   /**
    * Generate matrix with random elements, sampled from the standard normal distribution of mean 0
    * and variance of 1.
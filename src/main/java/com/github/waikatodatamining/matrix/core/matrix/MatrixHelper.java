@@ -24,7 +24,6 @@ import com.github.waikatodatamining.matrix.core.Utils;
 import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import org.ojalgo.matrix.store.PhysicalStore;
 
 import java.io.File;
 import java.nio.file.Files;
@@ -197,32 +196,51 @@ public class MatrixHelper {
    * @return Euclidean distance matrix
    */
   public static Matrix euclideanDistance(Matrix X, Matrix Y, boolean squared) {
-    Matrix XX = rowNorms(X, true);
-    Matrix YY = rowNorms(Y, true);
-
-    Matrix distances = X.mul(Y.transpose());
-    distances = distances.mul(-2);
-    distances = distances.add(XX);
-    distances = distances.add(YY);
+    double[] XX = rowNorms(X, true).toRawCopy1D();
+    double[] YY = rowNorms(Y, true).toRawCopy1D();
+
+    // ||x - y||^2 = ||x||^2 + ||y||^2 - 2 * x^T * y
+    Matrix distances = X.mult(Y);
+    for (int j = 0; j < YY.length; j++) {
+      for (int i = 0; i < XX.length; i++) {
+	// Clip at zero, floating point errors may result in small negative values
+	double distance = Math.max(0.0, XX[i] + YY[j] - 2 * distances.get(i, j));
+	distances.set(i, j, squared ? distance : Math.sqrt(distance));
+      }
+    }
 
     // Ensure i==j is set to zero (may not be the case due to floating point
     // errors
-    if (X.equals(Y)) {
-      ((PhysicalStore<Double>) distances.data).fillDiagonal(0.0);
+    if (X == Y) {
+      for (int i = 0; i < XX.length; i++)
+	distances.set(i, i, 0.0);
     }
 
-    // Skip square root if the squared distances are necessary anyway
-    if (squared) {
-      return distances;
+    return distances;
+  }
+
+  /**
+   * Get the l2-norms of the rows of the given matrix.
+   *
+   * @param X       Matrix
+   * @param squared Whether the result shall be squared
+   * @return Column vector with the (squared) l2-norm of each row
+   */
+  public static Matrix rowNorms(Matrix X, boolean squared) {
+    double[] norms = new double[X.numRows()];
+    for (int j = 0; j < X.numColumns(); j++) {
+      for (int i = 0; i < norms.length; i++) {
+	double value = X.get(i, j);
+	norms[i] += value * value;
+      }
     }
-    else {
-      return distances.sqrt();
+
+    if (!squared) {
+      for (int i = 0; i < norms.length; i++)
+	norms[i] = Math.sqrt(norms[i]);
     }
-  }
 
-  public static Matrix rowNorms(Matrix X, boolean squared){
-    // TODO: Implement efficient elementwise multiplication.
-    return null;
+    return MatrixFactory.fromColumn(norms);
   }
 
   /**
@@ -545,4 +563,96 @@ public class MatrixHelper {
   public static Matrix covariance(Matrix a) {
     return covariance(a, a);
   }
+
+  /**
+   * Computes result = A * v.
+   *
+   * @param A Matrix (rows x columns)
+   * @param v Vector (columns)
+   * @param result Vector (rows) to store the result in
+   */
+  public static void mul(double[][] A, double[] v, double[] result) {
+    for (int i = 0; i < A.length; i++) {
+      double[] row = A[i];
+      double sum = 0.0;
+      for (int j = 0; j < v.length; j++)
+        sum += row[j] * v[j];
+      result[i] = sum;
+    }
+  }
+
+  /**
+   * Computes result = A' * v, without forming A'.
+   *
+   * @param A Matrix (rows x columns)
+   * @param v Vector (rows)
+   * @param result Vector (columns) to store the result in
+   */
+  public static void tmul(double[][] A, double[] v, double[] result) {
+    Arrays.fill(result, 0.0);
+    for (int i = 0; i < A.length; i++) {
+      double[] row = A[i];
+      double vi = v[i];
+      for (int j = 0; j < result.length; j++)
+        result[j] += row[j] * vi;
+    }
+  }
+
+  /**
+   * Computes A = A - u * v' in place.
+   *
+   * @param A Matrix (rows x columns)
+   * @param u Vector (rows)
+   * @param v Vector (columns)
+   */
+  public static void subOuter(double[][] A, double[] u, double[] v) {
+    for (int i = 0; i < A.length; i++) {
+      double[] row = A[i];
+      double ui = u[i];
+      for (int j = 0; j < v.length; j++)
+        row[j] -= ui * v[j];
+    }
+  }
+
+  /**
+   * Scales the vector in place.
+   *
+   * @param v Vector
+   * @param factor Scaling factor
+   */
+  public static void scale(double[] v, double factor) {
+    for (int i = 0; i < v.length; i++)
+      v[i] *= factor;
+  }
+
+  /**
+   * Returns the squared l2-norm of the vector.
+   *
+   * @param v Vector
+   * @return Squared l2-norm
+   */
+  public static double norm2Squared(double[] v) {
+    double result = 0.0;
+    for (double d : v)
+      result += d * d;
+    return result;
+  }
+
+  /**
+   * Returns the maximum squared l2-norm of the columns of the matrix.
+   *
+   * @param A Matrix (rows x columns)
+   * @return Maximum squared column norm
+   */
+  public static double maxColumnNorm2Squared(double[][] A) {
+    double[] norms = new double[A.length == 0 ? 0 : A[0].length];
+    for (double[] row : A) {
+      for (int j = 0; j < norms.length; j++)
+        norms[j] += row[j] * row[j];
+    }
+    double result = 0.0;
+    for (double norm : norms)
+      result = Math.max(result, norm);
+    return result;
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractSplitter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import com.github.waikatodatamining.matrix.core.LoggingObject;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ancestor for schemes that split the rows of a dataset into train/test
+ * splits.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractSplitter
+  extends LoggingObject {
+
+  private static final long serialVersionUID = -3286914035622419823L;
+
+  /** the seed for randomizing the rows. */
+  protected long m_Seed = 1;
+
+  /** whether to randomize the rows. */
+  protected boolean m_Randomize = true;
+
+  /**
+   * Sets the seed for randomizing the rows.
+   *
+   * @param value	the seed
+   */
+  public void setSeed(long value) {
+    m_Seed = value;
+  }
+
+  /**
+   * Returns the seed for randomizing the rows.
+   *
+   * @return		the seed
+   */
+  public long getSeed() {
+    return m_Seed;
+  }
+
+  /**
+   * Sets whether to randomize the rows before splitting.
+   *
+   * @param value	true if to randomize
+   */
+  public void setRandomize(boolean value) {
+    m_Randomize = value;
+  }
+
+  /**
+   * Returns whether to randomize the rows before splitting.
+   *
+   * @return		true if to randomize
+   */
+  public boolean getRandomize() {
+    return m_Randomize;
+  }
+
+  /**
+   * Returns the row indices 0..n-1, shuffled if randomizing.
+   *
+   * @param numRows	the number of rows
+   * @param random	the random number generator to use
+   * @return		the indices
+   */
+  protected int[] indices(int numRows, Random random) {
+    int[]	result;
+    int		i;
+    int		j;
+    int		tmp;
+
+    result = new int[numRows];
+    for (i = 0; i < numRows; i++)
+      result[i] = i;
+    if (m_Randomize) {
+      for (i = numRows - 1; i > 0; i--) {
+	j         = random.nextInt(i + 1);
+	tmp       = result[i];
+	result[i] = result[j];
+	result[j] = tmp;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Turns the fold assignment into splits, one per fold.
+   *
+   * @param folds	the fold index per row
+   * @param numFolds	the number of folds
+   * @param offset	the index of the first split
+   * @param splits	the list to add the splits to
+   */
+  protected void addSplits(int[] folds, int numFolds, int offset, List<Split> splits) {
+    int[]	counts;
+    int[][]	train;
+    int[][]	test;
+    int[]	numTrain;
+    int[]	numTest;
+    int		fold;
+    int		i;
+
+    counts = new int[numFolds];
+    for (i = 0; i < folds.length; i++)
+      counts[folds[i]]++;
+
+    train    = new int[numFolds][];
+    test     = new int[numFolds][];
+    numTrain = new int[numFolds];
+    numTest  = new int[numFolds];
+    for (fold = 0; fold < numFolds; fold++) {
+      train[fold] = new int[folds.length - counts[fold]];
+      test[fold]  = new int[counts[fold]];
+    }
+    for (i = 0; i < folds.length; i++) {
+      for (fold = 0; fold < numFolds; fold++) {
+	if (folds[i] == fold)
+	  test[fold][numTest[fold]++] = i;
+	else
+	  train[fold][numTrain[fold]++] = i;
+      }
+    }
+
+    for (fold = 0; fold < numFolds; fold++)
+      splits.add(new Split(offset + fold, train[fold], test[fold]));
+  }
+
+  /**
+   * Hook method for checking the number of rows before splitting.
+   *
+   * @param numRows	the number of rows
+   */
+  protected void check(int numRows) {
+    if (numRows < 2)
+      throw new MatrixAlgorithmsException("At least two rows required for splitting: " + numRows);
+  }
+
+  /**
+   * Performs the actual splitting.
+   *
+   * @param numRows	the number of rows
+   * @return		the splits
+   */
+  protected abstract List<Split> doSplit(int numRows);
+
+  /**
+   * Splits the rows of a dataset.
+   *
+   * @param numRows	the number of rows
+   * @return		the splits
+   */
+  public List<Split> split(int numRows) {
+    check(numRows);
+    return doSplit(numRows);
+  }
+}
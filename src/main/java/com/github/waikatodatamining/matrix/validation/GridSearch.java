@@ -0,0 +1,574 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridSearch.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import com.github.waikatodatamining.matrix.core.LoggingObject;
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.Utils;
+import com.github.waikatodatamining.matrix.core.algorithm.PredictingSupervisedMatrixAlgorithm;
+import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Evaluates all combinations of parameter values of an algorithm on the
+ * splits of a dataset, e.g., for selecting the number of components.
+ * <br>
+ * Every (split x setting) combination is a separate job, run on a
+ * work-stealing pool. The number of concurrent jobs is capped by the number
+ * of threads and by the estimated memory per job (a multiple of the size of
+ * the data, see {@link #setMemoryFactor(double)}) relative to the available
+ * heap. {@link #stop()} cancels pending jobs and stops the running
+ * algorithms.
+ *
+ * @param <T> the type of algorithm to evaluate
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GridSearch<T extends PredictingSupervisedMatrixAlgorithm>
+  extends LoggingObject {
+
+  private static final long serialVersionUID = 4437312962011588290L;
+
+  /**
+   * Sets a parameter value. Serializable, so that lambdas and method
+   * references get copied along with the search.
+   *
+   * @param <T> the type of algorithm
+   * @param <V> the type of the values
+   */
+  @FunctionalInterface
+  public interface Setter<T, V>
+    extends BiConsumer<T, V>, Serializable {
+  }
+
+  /**
+   * A parameter and the values to evaluate.
+   *
+   * @param <T> the type of algorithm
+   * @param <V> the type of the values
+   */
+  public static class Parameter<T, V>
+    implements Serializable {
+
+    private static final long serialVersionUID = -2381645934317756412L;
+
+    /** the name of the parameter. */
+    protected String m_Name;
+
+    /** the values to evaluate. */
+    protected List<V> m_Values;
+
+    /** for setting the value. */
+    protected Setter<T, V> m_Setter;
+
+    /**
+     * Initializes the parameter.
+     *
+     * @param name	the name
+     * @param values	the values to evaluate
+     * @param setter	for setting a value
+     */
+    public Parameter(String name, List<V> values, Setter<T, V> setter) {
+      m_Name   = name;
+      m_Values = new ArrayList<>(values);
+      m_Setter = setter;
+    }
+
+    /**
+     * Returns the name of the parameter.
+     *
+     * @return		the name
+     */
+    public String getName() {
+      return m_Name;
+    }
+
+    /**
+     * Returns the values to evaluate.
+     *
+     * @return		the values
+     */
+    public List<V> getValues() {
+      return m_Values;
+    }
+
+    /**
+     * Sets the value with the specified index.
+     *
+     * @param algorithm	the algorithm to update
+     * @param index	the index of the value
+     */
+    public void apply(T algorithm, int index) {
+      m_Setter.accept(algorithm, m_Values.get(index));
+    }
+  }
+
+  /** the template of the algorithm to evaluate. */
+  protected T m_Template;
+
+  /** the parameters to evaluate. */
+  protected List<Parameter<T, ?>> m_Parameters = new ArrayList<>();
+
+  /** the splitter to use. */
+  protected AbstractSplitter m_Splitter = new KFoldSplitter();
+
+  /** the maximum number of threads, -1 for the number of available processors. */
+  protected int m_NumThreads = -1;
+
+  /** the estimated memory per job, as multiple of the size of the data. */
+  protected double m_MemoryFactor = 4.0;
+
+  /** whether the search was stopped. */
+  protected boolean m_Stopped;
+
+  /** the algorithms that are currently being evaluated. */
+  protected transient Set<T> m_Running;
+
+  /** the results of the jobs. */
+  protected List<JobResult> m_Results;
+
+  /** the RMSE per setting. */
+  protected double[] m_RMSE;
+
+  /**
+   * Initializes the search with the template to evaluate.
+   *
+   * @param template	the template
+   */
+  public GridSearch(T template) {
+    m_Template = template;
+  }
+
+  /**
+   * Returns the template of the algorithm to evaluate.
+   *
+   * @return		the template
+   */
+  public T getTemplate() {
+    return m_Template;
+  }
+
+  /**
+   * Adds a parameter to evaluate.
+   *
+   * @param name	the name of the parameter
+   * @param values	the values to evaluate
+   * @param setter	for setting a value
+   * @param <V>		the type of the values
+   */
+  public <V> void addParameter(String name, List<V> values, Setter<T, V> setter) {
+    if (values.isEmpty())
+      throw new MatrixAlgorithmsException("No values provided for parameter: " + name);
+    m_Parameters.add(new Parameter<>(name, values, setter));
+  }
+
+  /**
+   * Returns the parameters to evaluate.
+   *
+   * @return		the parameters
+   */
+  public List<Parameter<T, ?>> getParameters() {
+    return Collections.unmodifiableList(m_Parameters);
+  }
+
+  /**
+   * Sets the splitter to use.
+   *
+   * @param value	the splitter
+   */
+  public void setSplitter(AbstractSplitter value) {
+    m_Splitter = value;
+  }
+
+  /**
+   * Returns the splitter to use.
+   *
+   * @return		the splitter
+   */
+  public AbstractSplitter getSplitter() {
+    return m_Splitter;
+  }
+
+  /**
+   * Sets the maximum number of threads to use.
+   *
+   * @param value	the number of threads, -1 for the number of available processors
+   */
+  public void setNumThreads(int value) {
+    if ((value < 1) && (value != -1))
+      getLogger().warning("Number of threads must be at least 1 or -1 but was " + value + ".");
+    else
+      m_NumThreads = value;
+  }
+
+  /**
+   * Returns the maximum number of threads to use.
+   *
+   * @return		the number of threads, -1 for the number of available processors
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Sets the estimated memory per job, as multiple of the size of the data.
+   *
+   * @param value	the factor
+   */
+  public void setMemoryFactor(double value) {
+    if (value <= 0.0)
+      getLogger().warning("Memory factor must be greater than 0 but was " + value + ".");
+    else
+      m_MemoryFactor = value;
+  }
+
+  /**
+   * Returns the estimated memory per job, as multiple of the size of the data.
+   *
+   * @return		the factor
+   */
+  public double getMemoryFactor() {
+    return m_MemoryFactor;
+  }
+
+  /**
+   * Returns the number of parameter settings, i.e., the number of
+   * combinations of parameter values.
+   *
+   * @return		the number of settings
+   */
+  public int getNumSettings() {
+    int		result;
+
+    result = 1;
+    for (Parameter<T, ?> parameter : m_Parameters)
+      result *= parameter.getValues().size();
+
+    return result;
+  }
+
+  /**
+   * Returns the indices of the parameter values of the setting.
+   *
+   * @param setting	the index of the setting
+   * @return		the value index per parameter
+   */
+  protected int[] getValueIndices(int setting) {
+    int[]	result;
+    int		i;
+    int		size;
+
+    result = new int[m_Parameters.size()];
+    for (i = m_Parameters.size() - 1; i >= 0; i--) {
+      size      = m_Parameters.get(i).getValues().size();
+      result[i] = setting % size;
+      setting  /= size;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a copy of the template with the parameter values of the
+   * setting applied.
+   *
+   * @param setting	the index of the setting
+   * @return		the algorithm
+   */
+  public T createAlgorithm(int setting) {
+    T		result;
+    int[]	indices;
+    int		i;
+
+    result  = Utils.deepCopy(m_Template);
+    indices = getValueIndices(setting);
+    for (i = 0; i < indices.length; i++)
+      m_Parameters.get(i).apply(result, indices[i]);
+
+    return result;
+  }
+
+  /**
+   * Returns a description of the parameter values of the setting.
+   *
+   * @param setting	the index of the setting
+   * @return		the description
+   */
+  public String getSettingDescription(int setting) {
+    StringBuilder	result;
+    Parameter<T, ?>	parameter;
+    int[]		indices;
+    int			i;
+
+    result  = new StringBuilder();
+    indices = getValueIndices(setting);
+    for (i = 0; i < indices.length; i++) {
+      parameter = m_Parameters.get(i);
+      if (i > 0)
+	result.append(", ");
+      result.append(parameter.getName()).append("=").append(parameter.getValues().get(indices[i]));
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Stops the search.
+   */
+  public void stop() {
+    Set<T>	running;
+
+    m_Stopped = true;
+    running   = m_Running;
+    if (running != null) {
+      for (T algorithm : running)
+	algorithm.stop();
+    }
+  }
+
+  /**
+   * Returns whether the search was stopped.
+   *
+   * @return		true if stopped
+   */
+  public boolean isStopped() {
+    return m_Stopped;
+  }
+
+  /**
+   * Determines the number of jobs to run concurrently.
+   *
+   * @param X		the predictors
+   * @param y		the response
+   * @param numJobs	the number of jobs
+   * @return		the number of concurrent jobs
+   */
+  protected int determineParallelism(Matrix X, Matrix y, int numJobs) {
+    Runtime	runtime;
+    double	perJob;
+    long	available;
+    int		result;
+
+    runtime   = Runtime.getRuntime();
+    result    = (m_NumThreads == -1) ? runtime.availableProcessors() : m_NumThreads;
+    perJob    = m_MemoryFactor * ((double) X.numRows() * X.numColumns() + (double) y.numRows() * y.numColumns()) * Double.BYTES;
+    available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    result    = (int) Math.min(result, Math.max(1.0, Math.floor(available / perJob)));
+    result    = Math.max(1, Math.min(result, numJobs));
+
+    if (getDebug())
+      getLogger().info("Concurrent jobs: " + result + " (estimated memory per job: " + (long) perJob + " bytes)");
+
+    return result;
+  }
+
+  /**
+   * Evaluates a single setting on a single split.
+   *
+   * @param X		the predictors
+   * @param y		the response
+   * @param split	the split
+   * @param setting	the index of the setting
+   * @return		the result
+   */
+  protected JobResult evaluateJob(Matrix X, Matrix y, Split split, int setting) {
+    T		algorithm;
+    Matrix	yTest;
+    Matrix	predictions;
+    double	sse;
+    double	diff;
+    long	start;
+    long	trainTime;
+    long	predictTime;
+    int		i;
+    int		j;
+
+    if (m_Stopped)
+      throw new StoppedException();
+
+    algorithm = createAlgorithm(setting);
+    m_Running.add(algorithm);
+    try {
+      // stop() may have missed the algorithm
+      if (m_Stopped)
+	throw new StoppedException();
+      start = System.nanoTime();
+      algorithm.configure(split.getTrain(X), split.getTrain(y));
+      trainTime = System.nanoTime() - start;
+      start = System.nanoTime();
+      predictions = algorithm.predict(split.getTest(X));
+      predictTime = System.nanoTime() - start;
+    }
+    finally {
+      m_Running.remove(algorithm);
+    }
+
+    yTest = split.getTest(y);
+    sse   = 0.0;
+    for (j = 0; j < yTest.numColumns(); j++) {
+      for (i = 0; i < yTest.numRows(); i++) {
+	diff = predictions.get(i, j) - yTest.get(i, j);
+	sse += diff * diff;
+      }
+    }
+
+    return new JobResult(setting, split.getIndex(), sse, yTest.numRows() * yTest.numColumns(), trainTime, predictTime);
+  }
+
+  /**
+   * Evaluates all settings on all splits.
+   *
+   * @param X		the predictors
+   * @param y		the response
+   * @return		the results of all jobs
+   */
+  public List<JobResult> evaluate(Matrix X, Matrix y) {
+    ExecutorService		executor;
+    List<Future<JobResult>>	futures;
+    List<JobResult>		results;
+    List<Split>			splits;
+    JobResult			result;
+    double[]			sse;
+    int[]			count;
+    int				numSettings;
+    int				setting;
+    int				i;
+
+    if (X.numRows() != y.numRows())
+      throw new InvalidShapeException("Predictors and response differ in number of rows", X, y);
+
+    m_Stopped   = false;
+    m_Results   = null;
+    m_RMSE      = null;
+    m_Running   = ConcurrentHashMap.newKeySet();
+    splits      = m_Splitter.split(X.numRows());
+    numSettings = getNumSettings();
+
+    executor = Executors.newWorkStealingPool(determineParallelism(X, y, splits.size() * numSettings));
+    futures  = new ArrayList<>();
+    results  = new ArrayList<>();
+    try {
+      for (Split split : splits) {
+	for (setting = 0; setting < numSettings; setting++) {
+	  final Split s = split;
+	  final int n = setting;
+	  futures.add(executor.submit(() -> evaluateJob(X, y, s, n)));
+	}
+      }
+      for (i = 0; i < futures.size(); i++) {
+	try {
+	  result = futures.get(i).get();
+	  results.add(result);
+	  if (getDebug())
+	    getLogger().info(result.toString());
+	}
+	catch (ExecutionException e) {
+	  stop();
+	  if (e.getCause() instanceof RuntimeException)
+	    throw (RuntimeException) e.getCause();
+	  throw new MatrixAlgorithmsException("Failed to evaluate job #" + (i + 1), e.getCause());
+	}
+	catch (InterruptedException e) {
+	  stop();
+	  Thread.currentThread().interrupt();
+	  throw new StoppedException("Interrupted while evaluating jobs");
+	}
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      m_Running = null;
+    }
+
+    if (m_Stopped)
+      throw new StoppedException();
+
+    // pool the errors of all splits per setting
+    sse   = new double[numSettings];
+    count = new int[numSettings];
+    for (JobResult r : results) {
+      sse[r.getSetting()]   += r.getSSE();
+      count[r.getSetting()] += r.getNumValues();
+    }
+    m_RMSE = new double[numSettings];
+    for (setting = 0; setting < numSettings; setting++)
+      m_RMSE[setting] = Math.sqrt(sse[setting] / count[setting]);
+    m_Results = results;
+
+    if (getDebug())
+      getLogger().info("RMSE: " + Arrays.toString(m_RMSE));
+
+    return m_Results;
+  }
+
+  /**
+   * Returns the results of all jobs of the last search.
+   *
+   * @return		the results, null if not available
+   */
+  public List<JobResult> getResults() {
+    return m_Results;
+  }
+
+  /**
+   * Returns the RMSE per setting of the last search, pooled over all splits.
+   *
+   * @return		the RMSE, null if not available
+   */
+  public double[] getRMSE() {
+    return m_RMSE;
+  }
+
+  /**
+   * Returns the index of the setting with the lowest RMSE of the last
+   * search.
+   *
+   * @return		the index, -1 if not available
+   */
+  public int getBestSetting() {
+    int		result;
+    int		i;
+
+    if (m_RMSE == null)
+      return -1;
+
+    result = 0;
+    for (i = 1; i < m_RMSE.length; i++) {
+      if (m_RMSE[i] < m_RMSE[result])
+	result = i;
+    }
+
+    return result;
+  }
+}
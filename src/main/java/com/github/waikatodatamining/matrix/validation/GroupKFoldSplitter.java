@@ -0,0 +1,150 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GroupKFoldSplitter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * K-fold splitting that keeps all rows of a group (e.g., replicate
+ * measurements of the same sample) in the same fold. The groups get
+ * assigned greedily, largest first, to the fold with the fewest rows so
+ * far. Randomization only affects the order of groups with the same size.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GroupKFoldSplitter
+  extends KFoldSplitter {
+
+  private static final long serialVersionUID = 1843057391540209725L;
+
+  /** the group per row. */
+  protected int[] m_Groups;
+
+  /**
+   * Sets the group per row.
+   *
+   * @param value	the groups
+   */
+  public void setGroups(int[] value) {
+    m_Groups = value;
+  }
+
+  /**
+   * Returns the group per row.
+   *
+   * @return		the groups, null if not set
+   */
+  public int[] getGroups() {
+    return m_Groups;
+  }
+
+  /**
+   * Hook method for checking the number of rows before splitting.
+   *
+   * @param numRows	the number of rows
+   */
+  @Override
+  protected void check(int numRows) {
+    super.check(numRows);
+    if (m_Groups == null)
+      throw new MatrixAlgorithmsException("No groups set!");
+    if (m_Groups.length != numRows)
+      throw new MatrixAlgorithmsException("Number of groups and rows differ: " + m_Groups.length + " != " + numRows);
+  }
+
+  /**
+   * Performs the actual splitting.
+   *
+   * @param numRows	the number of rows
+   * @return		the splits
+   */
+  @Override
+  protected List<Split> doSplit(int numRows) {
+    List<Split>		result;
+    TIntIntHashMap	groupIndex;
+    List<Integer>	sizes;
+    int[]		groupSizes;
+    int[]		groupFold;
+    int[]		foldSizes;
+    int[]		folds;
+    int[]		order;
+    Integer[]		sorted;
+    int			numGroups;
+    int			numFolds;
+    int			smallest;
+    int			group;
+    int			fold;
+    int			i;
+
+    // map groups to 0..numGroups-1 and count the rows
+    groupIndex = new TIntIntHashMap();
+    sizes      = new ArrayList<>();
+    for (i = 0; i < numRows; i++) {
+      if (!groupIndex.containsKey(m_Groups[i])) {
+	groupIndex.put(m_Groups[i], sizes.size());
+	sizes.add(0);
+      }
+      group = groupIndex.get(m_Groups[i]);
+      sizes.set(group, sizes.get(group) + 1);
+    }
+    numGroups  = sizes.size();
+    numFolds   = Math.min(m_NumFolds, numGroups);
+    if (numFolds < 2)
+      throw new MatrixAlgorithmsException("At least two groups required for splitting: " + numGroups);
+    groupSizes = new int[numGroups];
+    for (i = 0; i < numGroups; i++)
+      groupSizes[i] = sizes.get(i);
+
+    // largest groups first
+    order  = indices(numGroups, new Random(m_Seed));
+    sorted = new Integer[numGroups];
+    for (i = 0; i < numGroups; i++)
+      sorted[i] = order[i];
+    Arrays.sort(sorted, (a, b) -> Integer.compare(groupSizes[b], groupSizes[a]));
+
+    groupFold = new int[numGroups];
+    foldSizes = new int[numFolds];
+    for (i = 0; i < numGroups; i++) {
+      smallest = 0;
+      for (fold = 1; fold < numFolds; fold++) {
+	if (foldSizes[fold] < foldSizes[smallest])
+	  smallest = fold;
+      }
+      groupFold[sorted[i]] = smallest;
+      foldSizes[smallest] += groupSizes[sorted[i]];
+    }
+
+    folds = new int[numRows];
+    for (i = 0; i < numRows; i++)
+      folds[i] = groupFold[groupIndex.get(m_Groups[i])];
+
+    result = new ArrayList<>();
+    addSplits(folds, numFolds, 0, result);
+
+    return result;
+  }
+}
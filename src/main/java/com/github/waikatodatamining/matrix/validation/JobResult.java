@@ -0,0 +1,148 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JobResult.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import java.io.Serializable;
+
+/**
+ * The result of evaluating a single parameter setting on a single split.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class JobResult
+  implements Serializable {
+
+  private static final long serialVersionUID = -1538250813296371839L;
+
+  /** the index of the parameter setting. */
+  protected int m_Setting;
+
+  /** the index of the split. */
+  protected int m_Split;
+
+  /** the sum of squared errors on the test rows. */
+  protected double m_SSE;
+
+  /** the number of predicted values. */
+  protected int m_NumValues;
+
+  /** the time for training in nanoseconds. */
+  protected long m_TrainTime;
+
+  /** the time for predicting in nanoseconds. */
+  protected long m_PredictTime;
+
+  /**
+   * Initializes the result.
+   *
+   * @param setting	the index of the parameter setting
+   * @param split	the index of the split
+   * @param sse		the sum of squared errors
+   * @param numValues	the number of predicted values
+   * @param trainTime	the time for training in nanoseconds
+   * @param predictTime	the time for predicting in nanoseconds
+   */
+  public JobResult(int setting, int split, double sse, int numValues, long trainTime, long predictTime) {
+    m_Setting     = setting;
+    m_Split       = split;
+    m_SSE         = sse;
+    m_NumValues   = numValues;
+    m_TrainTime   = trainTime;
+    m_PredictTime = predictTime;
+  }
+
+  /**
+   * Returns the index of the parameter setting.
+   *
+   * @return		the index
+   */
+  public int getSetting() {
+    return m_Setting;
+  }
+
+  /**
+   * Returns the index of the split.
+   *
+   * @return		the index
+   */
+  public int getSplit() {
+    return m_Split;
+  }
+
+  /**
+   * Returns the sum of squared errors on the test rows.
+   *
+   * @return		the SSE
+   */
+  public double getSSE() {
+    return m_SSE;
+  }
+
+  /**
+   * Returns the number of predicted values, i.e., test rows x response
+   * columns.
+   *
+   * @return		the number of values
+   */
+  public int getNumValues() {
+    return m_NumValues;
+  }
+
+  /**
+   * Returns the root mean squared error on the test rows.
+   *
+   * @return		the RMSE
+   */
+  public double getRMSE() {
+    return Math.sqrt(m_SSE / m_NumValues);
+  }
+
+  /**
+   * Returns the time for training.
+   *
+   * @return		the time in nanoseconds
+   */
+  public long getTrainTime() {
+    return m_TrainTime;
+  }
+
+  /**
+   * Returns the time for predicting.
+   *
+   * @return		the time in nanoseconds
+   */
+  public long getPredictTime() {
+    return m_PredictTime;
+  }
+
+  /**
+   * Returns a short description of the result.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return "setting #" + (m_Setting + 1) + ", split #" + (m_Split + 1)
+      + ": RMSE=" + getRMSE()
+      + ", train=" + (m_TrainTime / 1000000) + "ms"
+      + ", predict=" + (m_PredictTime / 1000000) + "ms";
+  }
+}
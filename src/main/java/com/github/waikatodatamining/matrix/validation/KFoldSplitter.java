@@ -0,0 +1,101 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * KFoldSplitter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Splits the rows into k folds, each fold is used once as test set.
+ * If there are fewer rows than folds, the number of rows is used instead
+ * (i.e., leave-one-out).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class KFoldSplitter
+  extends AbstractSplitter {
+
+  private static final long serialVersionUID = 6920359410258118733L;
+
+  /** the number of folds. */
+  protected int m_NumFolds = 10;
+
+  /**
+   * Sets the number of folds.
+   *
+   * @param value	the number of folds
+   */
+  public void setNumFolds(int value) {
+    if (value < 2)
+      getLogger().warning("Number of folds must be at least 2 but was " + value + ".");
+    else
+      m_NumFolds = value;
+  }
+
+  /**
+   * Returns the number of folds.
+   *
+   * @return		the number of folds
+   */
+  public int getNumFolds() {
+    return m_NumFolds;
+  }
+
+  /**
+   * Assigns the rows to folds.
+   *
+   * @param numRows	the number of rows
+   * @param numFolds	the number of folds
+   * @param random	the random number generator to use
+   * @return		the fold index per row
+   */
+  protected int[] assignFolds(int numRows, int numFolds, Random random) {
+    int[]	result;
+    int[]	indices;
+    int		i;
+
+    indices = indices(numRows, random);
+    result  = new int[numRows];
+    for (i = 0; i < numRows; i++)
+      result[indices[i]] = i % numFolds;
+
+    return result;
+  }
+
+  /**
+   * Performs the actual splitting.
+   *
+   * @param numRows	the number of rows
+   * @return		the splits
+   */
+  @Override
+  protected List<Split> doSplit(int numRows) {
+    List<Split>	result;
+    int		numFolds;
+
+    result   = new ArrayList<>();
+    numFolds = Math.min(m_NumFolds, numRows);
+    addSplits(assignFolds(numRows, numFolds, new Random(m_Seed)), numFolds, 0, result);
+
+    return result;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RepeatedKFoldSplitter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Repeats k-fold splitting with different randomizations of the rows.
+ * The splits of all repetitions are returned, i.e., runs x folds.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RepeatedKFoldSplitter
+  extends KFoldSplitter {
+
+  private static final long serialVersionUID = -4518043208770036581L;
+
+  /** the number of repetitions. */
+  protected int m_NumRepetitions = 10;
+
+  /**
+   * Sets the number of repetitions.
+   *
+   * @param value	the number of repetitions
+   */
+  public void setNumRepetitions(int value) {
+    if (value < 1)
+      getLogger().warning("Number of repetitions must be at least 1 but was " + value + ".");
+    else
+      m_NumRepetitions = value;
+  }
+
+  /**
+   * Returns the number of repetitions.
+   *
+   * @return		the number of repetitions
+   */
+  public int getNumRepetitions() {
+    return m_NumRepetitions;
+  }
+
+  /**
+   * Performs the actual splitting.
+   *
+   * @param numRows	the number of rows
+   * @return		the splits
+   */
+  @Override
+  protected List<Split> doSplit(int numRows) {
+    List<Split>	result;
+    Random	random;
+    int		numFolds;
+    int		run;
+
+    result   = new ArrayList<>();
+    numFolds = Math.min(m_NumFolds, numRows);
+    random   = new Random(m_Seed);
+    for (run = 0; run < m_NumRepetitions; run++)
+      addSplits(assignFolds(numRows, numFolds, random), numFolds, run * numFolds, result);
+
+    return result;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Split.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.waikatodatamining.matrix.validation;
+
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+
+import java.io.Serializable;
+
+/**
+ * A train/test split, stored as row indices. The rows of a matrix are only
+ * obtained as views (see {@link Matrix#getRows(int[])}), no data is copied.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Split
+  implements Serializable {
+
+  private static final long serialVersionUID = 2914462468346431735L;
+
+  /** the index of the split. */
+  protected int m_Index;
+
+  /** the rows for training. */
+  protected int[] m_TrainRows;
+
+  /** the rows for testing. */
+  protected int[] m_TestRows;
+
+  /**
+   * Initializes the split.
+   *
+   * @param index	the index of the split
+   * @param trainRows	the rows for training
+   * @param testRows	the rows for testing
+   */
+  public Split(int index, int[] trainRows, int[] testRows) {
+    m_Index     = index;
+    m_TrainRows = trainRows;
+    m_TestRows  = testRows;
+  }
+
+  /**
+   * Returns the index of the split.
+   *
+   * @return		the index
+   */
+  public int getIndex() {
+    return m_Index;
+  }
+
+  /**
+   * Returns the rows for training.
+   *
+   * @return		the row indices
+   */
+  public int[] getTrainRows() {
+    return m_TrainRows;
+  }
+
+  /**
+   * Returns the rows for testing.
+   *
+   * @return		the row indices
+   */
+  public int[] getTestRows() {
+    return m_TestRows;
+  }
+
+  /**
+   * Returns a view on the training rows of the matrix.
+   *
+   * @param data	the matrix
+   * @return		the view
+   */
+  public Matrix getTrain(Matrix data) {
+    return data.getRows(m_TrainRows);
+  }
+
+  /**
+   * Returns a view on the test rows of the matrix.
+   *
+   * @param data	the matrix
+   * @return		the view
+   */
+  public Matrix getTest(Matrix data) {
+    return data.getRows(m_TestRows);
+  }
+
+  /**
+   * Returns a short description of the split.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return "split #" + (m_Index + 1) + ": train=" + m_TrainRows.length + ", test=" + m_TestRows.length;
+  }
+}
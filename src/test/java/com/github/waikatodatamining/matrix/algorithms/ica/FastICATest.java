@@ -8,6 +8,10 @@ import com.github.waikatodatamining.matrix.algorithms.ica.approxfun.LogCosH;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.test.misc.TestRegression;
 import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import static com.github.waikatodatamining.matrix.algorithms.pls.AbstractPLSTest.perturb;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FastICATest extends MatrixAlgorithmTest<FastICA> {
 
@@ -41,6 +45,27 @@ public class FastICATest extends MatrixAlgorithmTest<FastICA> {
     m_subject.setFun(new Exponential());
   }
 
+  @Test
+  public void warmStart() {
+    for (Algorithm algorithm : Algorithm.values()) {
+      Matrix X = m_inputData[0];
+      Matrix X2 = perturb(X);
+
+      FastICA cold = new FastICA();
+      cold.setAlgorithm(algorithm);
+      cold.transform(X2);
+
+      FastICA warm = new FastICA();
+      warm.setAlgorithm(algorithm);
+      warm.setWarmStart(true);
+      warm.transform(X);
+      warm.transform(X2);
+
+      assertTrue(warm.getNumIterations() < cold.getNumIterations(),
+	algorithm + ": " + warm.getNumIterations() + " >= " + cold.getNumIterations());
+    }
+  }
+
   @Override
   protected void setupRegressions(FastICA subject, Matrix[] inputData) {
     super.setupRegressions(subject, inputData);
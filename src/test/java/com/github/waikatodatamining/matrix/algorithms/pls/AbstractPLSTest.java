@@ -2,6 +2,7 @@ package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.algorithms.MatrixAlgorithmTest;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.test.misc.Tags;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,55 @@ public abstract class AbstractPLSTest<T extends AbstractPLS> extends MatrixAlgor
     }
   }
 
+  /**
+   * Returns three responses derived from the data: the response, its square
+   * and the difference of the first two predictors.
+   *
+   * @param X Predictors
+   * @param y Response
+   * @return Responses
+   */
+  public static Matrix multiResponse(Matrix X, Matrix y) {
+    return y.concat(y.mulElementwise(y), 1).concat(X.getColumn(0).sub(X.getColumn(1)), 1);
+  }
+
+  /**
+   * Returns the predictors with a little noise added, e.g., for checking that
+   * a warm start converges to the model of the changed data.
+   *
+   * @param X Predictors
+   * @return Perturbed predictors
+   */
+  public static Matrix perturb(Matrix X) {
+    return X.add(MatrixFactory.randn(X.numRows(), X.numColumns(), 2).mul(1e-3));
+  }
+
+  /**
+   * Asserts that the largest absolute difference, relative to the largest
+   * absolute expected value (at least 1), is within the tolerance.
+   *
+   * @param expected Expected matrix
+   * @param actual   Actual matrix
+   * @param tol      Tolerance
+   */
+  public static void assertRelativeMaxError(Matrix expected, Matrix actual, double tol) {
+    assertRelativeMaxError(expected, actual, tol, null);
+  }
+
+  /**
+   * Asserts that the largest absolute difference, relative to the largest
+   * absolute expected value (at least 1), is within the tolerance.
+   *
+   * @param expected Expected matrix
+   * @param actual   Actual matrix
+   * @param tol      Tolerance
+   * @param message  Message to output on failure
+   */
+  public static void assertRelativeMaxError(Matrix expected, Matrix actual, double tol, String message) {
+    double scale = Math.max(1.0, expected.abs().max());
+    Assertions.assertEquals(0.0, expected.sub(actual).abs().max() / scale, tol, message);
+  }
+
   /** Merge two tags with / if second tag is not empty */
   private static String mergeIfNotEmpty(String tag1, String tag2) {
     return tag1 + ("".equals(tag2) ? "" : "/" + tag2);
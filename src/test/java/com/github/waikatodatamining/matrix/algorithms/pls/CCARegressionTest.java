@@ -1,7 +1,13 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.algorithms.pls.NIPALS.DeflationMode;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
 import com.github.waikatodatamining.matrix.test.misc.TestRegression;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testcase for the CCARegression algorithm.
@@ -25,6 +31,31 @@ public class CCARegressionTest extends AbstractPLSTest<CCARegression> {
     m_subject.setNormYWeights(true);
   }
 
+  /**
+   * Ensures that tall predictors work when they are, or become through the
+   * deflation, rank-deficient. The third column is the sum of the others and
+   * using all components deflates X down to rank zero.
+   */
+  @Test
+  public void rankDeficientTallPredictors() {
+    Matrix base = MatrixFactory.randn(20, 2, 1);
+    Matrix X = base.concat(base.getColumn(0).add(base.getColumn(1)), 1);
+    Matrix y = base.getColumn(0).mul(2.0).sub(base.getColumn(1)).add(MatrixFactory.randn(20, 1, 2).mul(0.1));
+
+    m_subject.setNumComponents(X.numColumns());
+    m_subject.configure(X, y);
+
+    Matrix predictions = m_subject.predict(X);
+    assertEquals(X.numRows(), predictions.numRows());
+    for (int i = 0; i < predictions.numRows(); i++)
+      assertTrue(Double.isFinite(predictions.get(i, 0)));
+    Matrix T = m_subject.getMatrix("T");
+    for (int i = 0; i < T.numRows(); i++) {
+      for (int j = 0; j < T.numColumns(); j++)
+	assertTrue(Double.isFinite(T.get(i, j)));
+    }
+  }
+
   @Override
   protected CCARegression instantiateSubject() {
     return new CCARegression();
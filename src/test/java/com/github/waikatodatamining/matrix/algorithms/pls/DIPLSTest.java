@@ -6,6 +6,8 @@ import com.github.waikatodatamining.matrix.test.misc.TestRegression;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static com.github.waikatodatamining.matrix.core.matrix.MatrixFactory.randnLike;
 
 /**
@@ -68,6 +70,106 @@ public class DIPLSTest extends AbstractPLSTest<DIPLS> {
     }
   }
 
+  /**
+   * Ensures that applying the inverse via Woodbury in the sample space gives
+   * the same model as solving in the feature space.
+   */
+  @Test
+  public void sampleSpace() {
+    Matrix X = m_inputData[0];
+    Matrix X2 = X.add(randnLike(X, 0, 2, 0));
+    Matrix Y = m_inputData[1];
+
+    DIPLS featureSpace = new DIPLS() {
+      @Override
+      protected boolean useSampleSpace(int numSamples, int numFeatures) {
+        return false;
+      }
+    };
+    DIPLS sampleSpace = new DIPLS() {
+      @Override
+      protected boolean useSampleSpace(int numSamples, int numFeatures) {
+        return true;
+      }
+    };
+    featureSpace.setLambda(0.01);
+    sampleSpace.setLambda(0.01);
+    featureSpace.configureUnsupervised(X, X2, Y);
+    sampleSpace.configureUnsupervised(X, X2, Y);
+    Assertions.assertEquals(featureSpace.getMatrix("Wdi"), sampleSpace.getMatrix("Wdi"));
+    Assertions.assertEquals(featureSpace.predict(X2), sampleSpace.predict(X2));
+  }
+
+  /**
+   * Ensures that the models of a lambda path match the individual fits.
+   */
+  @Test
+  public void lambdaPath() {
+    Matrix X = m_inputData[0];
+    Matrix X2 = X.add(randnLike(X, 0, 2, 0));
+    Matrix Y = m_inputData[1];
+    double[] lambdas = {0.01, 0.1, 1.0, 10.0};
+
+    m_subject.setNumComponents(3);
+    m_subject.setNumThreads(2);
+    List<DIPLS> path = m_subject.configureUnsupervisedPath(lambdas, X, X2, Y);
+    Assertions.assertEquals(lambdas.length, path.size());
+    for (int i = 0; i < lambdas.length; i++) {
+      DIPLS single = new DIPLS();
+      single.setNumComponents(3);
+      single.setLambda(lambdas[i]);
+      single.configureUnsupervised(X, X2, Y);
+      Assertions.assertEquals(lambdas[i], path.get(i).getLambda());
+      Assertions.assertEquals(single.getMatrix("Wdi"), path.get(i).getMatrix("Wdi"));
+      Assertions.assertEquals(single.predict(X2), path.get(i).predict(X2));
+    }
+  }
+
+  /**
+   * Ensures that a lambda path can be fitted with an already configured
+   * model and doesn't alter it.
+   */
+  @Test
+  public void lambdaPathAfterConfigure() {
+    Matrix X = m_inputData[0];
+    Matrix X2 = X.add(randnLike(X, 0, 2, 0));
+    Matrix Y = m_inputData[1];
+    double[] lambdas = {0.1, 10.0};
+
+    m_subject.setNumComponents(2);
+    m_subject.configureUnsupervised(X, X2, Y);
+    Matrix expected = m_subject.predict(X2);
+    List<DIPLS> path = m_subject.configureUnsupervisedPath(lambdas, X, X2, Y);
+    Assertions.assertEquals(expected, m_subject.predict(X2));
+    for (int i = 0; i < lambdas.length; i++) {
+      DIPLS single = new DIPLS();
+      single.setNumComponents(2);
+      single.setLambda(lambdas[i]);
+      single.configureUnsupervised(X, X2, Y);
+      Assertions.assertEquals(2, path.get(i).getNumComponents());
+      Assertions.assertEquals(single.predict(X2), path.get(i).predict(X2));
+    }
+  }
+
+  /**
+   * Ensures that a lambda path with a different model adaption strategy
+   * doesn't change the strategy, and hence the predictions, of an already
+   * configured model.
+   */
+  @Test
+  public void lambdaPathOtherStrategy() {
+    Matrix X = m_inputData[0];
+    Matrix X2 = X.add(randnLike(X, 0, 2, 0));
+    Matrix Y = m_inputData[1];
+    double[] lambdas = {0.1, 10.0};
+
+    m_subject.setNumComponents(2);
+    m_subject.configureSupervised(X, X2, Y, Y);
+    Matrix expected = m_subject.predict(X2);
+    m_subject.configureUnsupervisedPath(lambdas, X, X2, Y);
+    Assertions.assertEquals(expected, m_subject.predict(X2));
+  }
+
   @Override
   protected DIPLS instantiateSubject() {
     return new DIPLS();
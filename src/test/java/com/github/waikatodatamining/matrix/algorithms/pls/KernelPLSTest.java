@@ -2,8 +2,14 @@ package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.test.misc.TestRegression;
 import com.github.waikatodatamining.matrix.algorithms.pls.kernel.LinearKernel;
+import com.github.waikatodatamining.matrix.algorithms.pls.kernel.Nystroem;
 import com.github.waikatodatamining.matrix.algorithms.pls.kernel.PolyKernel;
 import com.github.waikatodatamining.matrix.algorithms.pls.kernel.RBFKernel;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testcase for the KernelPLS algorithm.
@@ -27,6 +33,89 @@ public class KernelPLSTest extends AbstractPLSTest<KernelPLS> {
     m_subject.setKernel(new RBFKernel());
   }
 
+  @TestRegression
+  public void nystroem() {
+    m_subject.setApproximation(KernelPLS.KernelApproximation.NYSTROEM);
+    m_subject.setNumFeatures(20);
+  }
+
+  @TestRegression
+  public void nystroemKMeansPlusPlus() {
+    m_subject.setApproximation(KernelPLS.KernelApproximation.NYSTROEM);
+    m_subject.setLandmarkSelection(Nystroem.LandmarkSelection.KMEANS_PLUS_PLUS);
+    m_subject.setNumFeatures(20);
+  }
+
+  @TestRegression
+  public void randomFourierFeatures() {
+    m_subject.setApproximation(KernelPLS.KernelApproximation.RANDOM_FOURIER_FEATURES);
+    m_subject.setNumFeatures(50);
+  }
+
+  @TestRegression
+  public void compact() {
+    m_subject.setCompact(true);
+  }
+
+  @TestRegression
+  public void compactDualCoefficients() {
+    m_subject.setCompact(true);
+    m_subject.setDualCoefficients(true);
+  }
+
+  @TestRegression
+  public void nystroemDualCoefficients() {
+    m_subject.setApproximation(KernelPLS.KernelApproximation.NYSTROEM);
+    m_subject.setNumFeatures(20);
+    m_subject.setDualCoefficients(true);
+  }
+
+  /**
+   * Ensures that centralizing a test kernel matrix via the cached training
+   * kernel means gives the same result as the explicit formula
+   * (K - 1/n * 1_nt * 1_n^T * K_orig) * (I - 1/n * 1_n * 1_n^T).
+   */
+  @Test
+  public void testKernelCentering() {
+    Matrix X = m_inputData[0];
+    m_subject.setKernel(new RBFKernel());
+    m_subject.configure(X, m_inputData[1]);
+    Matrix Xc = m_subject.m_CenterX.transform(perturb(X));
+    Matrix K = m_subject.m_Kernel.applyMatrix(Xc, m_subject.m_X);
+    int nTrain = K.numColumns();
+    int nTest = K.numRows();
+    Matrix onesTrainTestScaled = MatrixFactory.filled(nTest, nTrain, 1.0 / nTrain);
+    Matrix onesTrainScaled = MatrixFactory.filled(nTrain, nTrain, 1.0 / nTrain);
+    Matrix I = MatrixFactory.eye(nTrain);
+    Matrix expected = K.sub(onesTrainTestScaled.mul(m_subject.m_K_orig)).mul(I.sub(onesTrainScaled));
+    assertRelativeMaxError(expected, m_subject.centralizeTestInKernelSpace(K.copy()), 1e-10);
+  }
+
+  /**
+   * Ensures that a warm start on slightly changed data converges to the same
+   * model in fewer iterations.
+   */
+  @Test
+  public void warmStart() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    Matrix Y = multiResponse(X, y);
+    Matrix X2 = perturb(X);
+
+    KernelPLS cold = new KernelPLS();
+    cold.setNumComponents(3);
+    cold.configure(X2, Y);
+
+    KernelPLS warm = new KernelPLS();
+    warm.setNumComponents(3);
+    warm.setWarmStart(true);
+    warm.configure(X, Y);
+    warm.configure(X2, Y);
+
+    assertRelativeMaxError(cold.predict(X2), warm.predict(X2), 1e-4);
+    assertTrue(warm.getNumIterations() < cold.getNumIterations());
+  }
+
   @Override
   protected KernelPLS instantiateSubject() {
     return new KernelPLS();
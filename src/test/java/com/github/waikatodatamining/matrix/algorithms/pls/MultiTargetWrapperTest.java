@@ -0,0 +1,85 @@
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.test.misc.TestDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.github.waikatodatamining.matrix.algorithms.pls.AbstractPLSTest.assertRelativeMaxError;
+import static com.github.waikatodatamining.matrix.algorithms.pls.AbstractPLSTest.multiResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testcase for the MultiTargetWrapper.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MultiTargetWrapperTest {
+
+  /** the predictors. */
+  protected Matrix m_X;
+
+  /** the response columns. */
+  protected Matrix m_Y;
+
+  @BeforeEach
+  public void setUp() {
+    m_X = TestDataset.BOLTS.load();
+    m_Y = multiResponse(m_X, TestDataset.BOLTS_RESPONSE.load());
+  }
+
+  /**
+   * Ensures that the wrapper predicts the same as separately trained models.
+   */
+  @Test
+  public void matchesSeparateModels() {
+    for (PreprocessingType type : PreprocessingType.values()) {
+      SIMPLS template = new SIMPLS();
+      template.setNumComponents(3);
+      template.setPreprocessingType(type);
+      MultiTargetWrapper wrapper = new MultiTargetWrapper();
+      wrapper.setTemplate(template);
+      wrapper.setNumThreads(2);
+      wrapper.configure(m_X, m_Y);
+      Matrix predictions = wrapper.predict(m_X);
+      assertEquals(m_Y.numColumns(), predictions.numColumns());
+      assertEquals(3 * m_Y.numColumns(), wrapper.transform(m_X).numColumns());
+
+      for (int j = 0; j < m_Y.numColumns(); j++) {
+	SIMPLS simpls = new SIMPLS();
+	simpls.setNumComponents(3);
+	simpls.setPreprocessingType(type);
+	simpls.configure(m_X, m_Y.getColumn(j));
+	assertRelativeMaxError(simpls.predict(m_X), predictions.getColumn(j), 1e-10);
+      }
+    }
+  }
+
+  /**
+   * Ensures that an already configured template can be used.
+   */
+  @Test
+  public void configuredTemplate() {
+    SIMPLS template = new SIMPLS();
+    template.setNumComponents(3);
+    template.configure(m_X, m_Y.getColumn(0));
+    MultiTargetWrapper wrapper = new MultiTargetWrapper();
+    wrapper.setTemplate(template);
+    wrapper.configure(m_X, m_Y);
+    assertEquals(m_Y.numColumns(), wrapper.predict(m_X).numColumns());
+    assertTrue(template.isConfigured());
+  }
+
+  /**
+   * Ensures that stopping the wrapper aborts the training.
+   */
+  @Test
+  public void stop() {
+    MultiTargetWrapper wrapper = new MultiTargetWrapper();
+    wrapper.stop();
+    assertThrows(StoppedException.class, () -> wrapper.configure(m_X, m_Y));
+  }
+}
@@ -1,7 +1,11 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
 import com.github.waikatodatamining.matrix.algorithms.pls.NIPALS.DeflationMode;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.test.misc.TestRegression;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testcase for the NIPALS algorithm.
@@ -25,6 +29,32 @@ public class NIPALSTest extends AbstractPLSTest<NIPALS> {
     m_subject.setNormYWeights(true);
   }
 
+  /**
+   * Ensures that a warm start on slightly changed data converges to the same
+   * model in fewer iterations.
+   */
+  @Test
+  public void warmStart() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    Matrix Y = multiResponse(X, y);
+    Matrix X2 = perturb(X);
+
+    NIPALS cold = new NIPALS();
+    cold.setNumComponents(3);
+    cold.configure(X2, Y);
+
+    NIPALS warm = new NIPALS();
+    warm.setNumComponents(3);
+    warm.setWarmStart(true);
+    warm.configure(X, Y);
+    warm.configure(X2, Y);
+
+    assertRelativeMaxError(cold.predict(X2), warm.predict(X2), 1e-4);
+    assertTrue(warm.getNumIterations() < cold.getNumIterations());
+  }
+
+
   @Override
   protected NIPALS instantiateSubject() {
     return new NIPALS();
@@ -0,0 +1,91 @@
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+import com.github.waikatodatamining.matrix.test.misc.TestRegression;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testcase for the PLS2 algorithm.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PLS2Test extends AbstractPLSTest<PLS2> {
+
+  @TestRegression
+  public void standardize() {
+    m_subject.setPreprocessingType(PreprocessingType.STANDARDIZE);
+  }
+
+  /**
+   * Ensures that PLS2 on a single response is equivalent to SIMPLS.
+   */
+  @Test
+  public void singleResponseMatchesSIMPLS() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    SIMPLS simpls = new SIMPLS();
+    simpls.configure(X, y);
+    m_subject.configure(X, y);
+    assertRelativeMaxError(simpls.predict(X), m_subject.predict(X), 1e-8);
+  }
+
+  /**
+   * Ensures that with all components, each response is predicted as by a
+   * separate single-response model with all components (least squares).
+   */
+  @Test
+  public void multiResponseMatchesSeparateModels() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    Matrix Y = multiResponse(X, y);
+
+    m_subject.setNumComponents(X.numColumns());
+    m_subject.setPreprocessingType(PreprocessingType.CENTER);
+    m_subject.configure(X, Y);
+    Matrix predictions = m_subject.predict(X);
+    assertEquals(Y.numColumns(), predictions.numColumns());
+
+    for (int j = 0; j < Y.numColumns(); j++) {
+      SIMPLS simpls = new SIMPLS();
+      simpls.setNumComponents(X.numColumns());
+      simpls.setPreprocessingType(PreprocessingType.CENTER);
+      simpls.configure(X, Y.getColumn(j));
+      assertRelativeMaxError(simpls.predict(X), predictions.getColumn(j), 1e-8);
+    }
+  }
+
+  /**
+   * Ensures that with fewer components than predictors, the components
+   * shared by multiple responses have orthonormal scores and that predicting
+   * with the first components matches a model fitted with only those.
+   */
+  @Test
+  public void multiResponseFewerComponents() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    Matrix Y = multiResponse(X, y);
+    int numComponents = X.numColumns() / 2;
+
+    m_subject.setNumComponents(numComponents);
+    m_subject.setPreprocessingType(PreprocessingType.CENTER);
+    m_subject.configure(X, Y);
+    Matrix T = m_subject.transform(X);
+    assertRelativeMaxError(MatrixFactory.eye(numComponents), T.tmul(T), 1e-8);
+
+    for (int k = 1; k < numComponents; k++) {
+      PLS2 fewer = new PLS2();
+      fewer.setNumComponents(k);
+      fewer.setPreprocessingType(PreprocessingType.CENTER);
+      fewer.configure(X, Y);
+      assertRelativeMaxError(fewer.predict(X), m_subject.predict(X, k), 1e-8, "k=" + k);
+    }
+  }
+
+  @Override
+  protected PLS2 instantiateSubject() {
+    return new PLS2();
+  }
+}
@@ -0,0 +1,146 @@
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.test.misc.TestDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.github.waikatodatamining.matrix.algorithms.pls.AbstractPLSTest.assertRelativeMaxError;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testcase for the PLSCrossValidation and predicting with fewer components.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PLSCrossValidationTest {
+
+  /** the predictors. */
+  protected Matrix m_X;
+
+  /** the response. */
+  protected Matrix m_y;
+
+  @BeforeEach
+  public void setUp() {
+    m_X = TestDataset.BOLTS.load();
+    m_y = TestDataset.BOLTS_RESPONSE.load();
+  }
+
+  /**
+   * Ensures that predicting with k components of a k_max model is the same
+   * as predicting with a model configured with k components.
+   */
+  @Test
+  public void predictWithFewerComponents() {
+    AbstractPLS[] algorithms = new AbstractPLS[]{new PLS1(), new SIMPLS(), new PLS2(), new NIPALS()};
+    for (AbstractPLS algorithm : algorithms) {
+      algorithm.setNumComponents(5);
+      algorithm.configure(m_X, m_y);
+      for (int k = 1; k <= 5; k++) {
+	AbstractPLS single = newInstance(algorithm);
+	single.setNumComponents(k);
+	single.configure(m_X, m_y);
+	assertRelativeMaxError(single.predict(m_X), algorithm.predict(m_X, k), 1e-8, algorithm.getClass().getSimpleName() + ", k=" + k);
+      }
+    }
+  }
+
+  /**
+   * Creates a new instance of the same class.
+   *
+   * @param algorithm	the algorithm to instantiate
+   * @return		the new instance
+   */
+  protected AbstractPLS newInstance(AbstractPLS algorithm) {
+    try {
+      return algorithm.getClass().getDeclaredConstructor().newInstance();
+    }
+    catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Ensures that the cross-validation returns one RMSECV per number of
+   * components and that the errors match configuring one model per k.
+   */
+  @Test
+  public void crossValidate() {
+    PLSCrossValidation cv = new PLSCrossValidation();
+    cv.setMaxComponents(5);
+    cv.setNumFolds(5);
+    cv.setNumThreads(2);
+    double[] rmsecv = cv.crossValidate(m_X, m_y);
+    assertEquals(5, rmsecv.length);
+    for (double value : rmsecv)
+      assertTrue(value > 0.0);
+    int best = cv.getBestNumComponents();
+    assertTrue((best >= 1) && (best <= 5));
+    for (double value : rmsecv)
+      assertTrue(rmsecv[best - 1] <= value);
+
+    // same folds, but a single component model
+    PLSCrossValidation single = new PLSCrossValidation();
+    single.setMaxComponents(1);
+    single.setNumFolds(5);
+    assertEquals(rmsecv[0], single.crossValidate(m_X, m_y)[0], 1e-8);
+  }
+
+  /**
+   * Ensures that an already configured template gets copied and gives the
+   * same results as an unconfigured one.
+   */
+  @Test
+  public void configuredTemplate() {
+    NIPALS template = new NIPALS();
+    template.setNumComponents(2);
+    template.configure(m_X, m_y);
+    PLSCrossValidation configured = new PLSCrossValidation();
+    configured.setMaxComponents(3);
+    configured.setTemplate(template);
+    double[] actual = configured.crossValidate(m_X, m_y);
+    PLSCrossValidation fresh = new PLSCrossValidation();
+    fresh.setMaxComponents(3);
+    fresh.setTemplate(new NIPALS());
+    double[] expected = fresh.crossValidate(m_X, m_y);
+    for (int i = 0; i < expected.length; i++)
+      assertEquals(expected[i], actual[i], 1e-8);
+    assertTrue(template.isConfigured());
+  }
+
+  /**
+   * Ensures that the cached coefficients for fewer components get replaced
+   * when the model gets configured again.
+   */
+  @Test
+  public void cachedCoefficients() {
+    NIPALS nipals = new NIPALS();
+    nipals.setNumComponents(3);
+    nipals.configure(m_X, m_y);
+    Matrix first = nipals.predict(m_X, 2);
+    assertEquals(first, nipals.predict(m_X, 2));
+
+    Matrix X = m_X.getRows(0, m_X.numRows() / 2);
+    Matrix y = m_y.getRows(0, m_y.numRows() / 2);
+    nipals.configure(X, y);
+    NIPALS expected = new NIPALS();
+    expected.setNumComponents(2);
+    expected.configure(X, y);
+    assertRelativeMaxError(expected.predict(m_X), nipals.predict(m_X, 2), 1e-8);
+  }
+
+  /**
+   * Ensures that algorithms that can't predict with fewer components are
+   * rejected.
+   */
+  @Test
+  public void unsupportedTemplate() {
+    PLSCrossValidation cv = new PLSCrossValidation();
+    cv.setTemplate(new OPLS());
+    assertThrows(MatrixAlgorithmsException.class, () -> cv.crossValidate(m_X, m_y));
+  }
+}
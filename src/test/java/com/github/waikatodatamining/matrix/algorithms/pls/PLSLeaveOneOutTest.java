@@ -0,0 +1,109 @@
+package com.github.waikatodatamining.matrix.algorithms.pls;
+
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.test.misc.TestDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testcase for the PLSLeaveOneOut evaluation.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PLSLeaveOneOutTest {
+
+  /** the predictors. */
+  protected Matrix m_X;
+
+  /** the response. */
+  protected Matrix m_y;
+
+  @BeforeEach
+  public void setUp() {
+    m_X = TestDataset.BOLTS.load();
+    m_y = TestDataset.BOLTS_RESPONSE.load();
+  }
+
+  /**
+   * Ensures that the downdated evaluation matches refitting SIMPLS for each
+   * left-out sample.
+   */
+  @Test
+  public void matchesRefits() {
+    int n = m_X.numRows();
+    int maxComponents = 3;
+
+    for (PreprocessingType type : PreprocessingType.values()) {
+      PLSLeaveOneOut loo = new PLSLeaveOneOut();
+      loo.setMaxComponents(maxComponents);
+      loo.setPreprocessingType(type);
+      loo.setNumThreads(2);
+      double[] press = loo.evaluate(m_X, m_y);
+      assertEquals(maxComponents, press.length);
+
+      for (int k = 1; k <= maxComponents; k++) {
+	double expectedPress = 0.0;
+	Matrix residuals = loo.getResiduals(k);
+	for (int i = 0; i < n; i++) {
+	  int[] train = new int[n - 1];
+	  for (int j = 0, r = 0; j < n; j++) {
+	    if (j != i)
+	      train[r++] = j;
+	  }
+	  SIMPLS simpls = new SIMPLS();
+	  simpls.setNumComponents(k);
+	  simpls.setPreprocessingType(type);
+	  simpls.configure(m_X.getRows(train), m_y.getRows(train));
+	  double residual = m_y.get(i, 0) - simpls.predict(m_X.getRow(i)).get(0, 0);
+	  assertEquals(residual, residuals.get(i, 0), 1e-8 * Math.max(1.0, Math.abs(residual)), type + ", k=" + k + ", i=" + i);
+	  expectedPress += residual * residual;
+	}
+	assertEquals(expectedPress, press[k - 1], 1e-8 * expectedPress, type + ", k=" + k);
+      }
+    }
+  }
+
+  /**
+   * Ensures that the residuals of multiple responses don't depend on the
+   * number of threads.
+   */
+  @Test
+  public void multipleResponses() {
+    Matrix Y = m_y.concat(m_X.getColumn(0), 1);
+    PLSLeaveOneOut single = new PLSLeaveOneOut();
+    single.setMaxComponents(3);
+    single.setNumThreads(1);
+    single.evaluate(m_X, Y);
+    PLSLeaveOneOut multi = new PLSLeaveOneOut();
+    multi.setMaxComponents(3);
+    multi.setNumThreads(3);
+    multi.evaluate(m_X, Y);
+
+    for (int k = 1; k <= 3; k++) {
+      assertEquals(Y.numColumns(), multi.getResiduals(k).numColumns());
+      assertEquals(0.0, single.getResiduals(k).sub(multi.getResiduals(k)).abs().max(), 1e-12);
+    }
+  }
+
+  /**
+   * Ensures that stopping the evaluation stops the running models.
+   */
+  @Test
+  public void stop() {
+    PLSLeaveOneOut loo = new PLSLeaveOneOut() {
+      @Override
+      protected void evaluateSample(PLS2 model, Matrix X, Matrix Y, double[][] C, double[] means, int sample, double[][] residuals, int offset) {
+	stop();
+	assertTrue(model.isStopped());
+	super.evaluateSample(model, X, Y, C, means, sample, residuals, offset);
+      }
+    };
+    loo.setNumThreads(1);
+    assertThrows(StoppedException.class, () -> loo.evaluate(m_X, m_y));
+  }
+}
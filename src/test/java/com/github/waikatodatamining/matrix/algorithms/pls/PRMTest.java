@@ -1,5 +1,9 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testcase for the PRM algorithm.
@@ -8,6 +12,33 @@ package com.github.waikatodatamining.matrix.algorithms.pls;
  */
 public class PRMTest extends AbstractPLSTest<PRM> {
 
+  /**
+   * Ensures that a warm start on slightly changed data needs fewer
+   * reweighting iterations and results in a model of similar quality (the
+   * starting weights affect the robust fit).
+   */
+  @Test
+  public void warmStart() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    Matrix X2 = perturb(X);
+
+    PRM cold = new PRM();
+    cold.configure(X2, y);
+
+    PRM warm = new PRM();
+    warm.setWarmStart(true);
+    warm.configure(X, y);
+    warm.configure(X2, y);
+
+    assertTrue(warm.getNumIterations() < cold.getNumIterations(),
+      warm.getNumIterations() + " >= " + cold.getNumIterations());
+
+    double rmseCold = Math.sqrt(cold.predict(X2).sub(y).norm2squared() / y.numRows());
+    double rmseWarm = Math.sqrt(warm.predict(X2).sub(y).norm2squared() / y.numRows());
+    assertTrue(rmseWarm < 1.1 * rmseCold, rmseWarm + " >= 1.1 * " + rmseCold);
+  }
+
   @Override
   protected PRM instantiateSubject() {
     return new PRM();
@@ -1,6 +1,12 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.test.misc.TestRegression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * Testcase for the SIMPLS algorithm.
@@ -24,6 +30,54 @@ public class SIMPLSTest extends AbstractPLSTest<SIMPLS> {
     m_subject.setNumCoefficients(3);
   }
 
+  /**
+   * Ensures that configuring from cross-products accumulated in several
+   * chunks yields the same model as configuring on the data.
+   */
+  @Test
+  public void configureFromCrossProducts() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    for (PreprocessingType type : PreprocessingType.values()) {
+      SIMPLS expected = instantiateSubject();
+      expected.setPreprocessingType(type);
+      expected.configure(X, y);
+
+      CrossProductsAccumulator crossProducts = new CrossProductsAccumulator(X.numColumns(), 1);
+      crossProducts.setChunkSize(7);
+      crossProducts.add(X.getRows(0, 15), y.getRows(0, 15));
+      crossProducts.add(X.getRows(15, X.numRows()), y.getRows(15, X.numRows()));
+      SIMPLS actual = instantiateSubject();
+      actual.setPreprocessingType(type);
+      actual.configureFromCrossProducts(crossProducts);
+
+      assertEquals(X.numRows(), crossProducts.getNumRows());
+      assertRelativeMaxError(expected.predict(X), actual.predict(X), 1e-10);
+      assertRelativeMaxError(expected.transform(X), actual.transform(X), 1e-10);
+    }
+  }
+
+  /**
+   * Ensures that row weights of 2 are equivalent to duplicated rows.
+   */
+  @Test
+  public void crossProductsWeights() {
+    Matrix X = m_inputData[0];
+    Matrix y = m_inputData[1];
+    CrossProductsAccumulator duplicated = new CrossProductsAccumulator(X.numColumns(), 1);
+    duplicated.add(X, y);
+    duplicated.add(X, y);
+    double[] weights = new double[X.numRows()];
+    Arrays.fill(weights, 2.0);
+    CrossProductsAccumulator weighted = new CrossProductsAccumulator(X.numColumns(), 1);
+    weighted.add(X, y, weights);
+
+    for (PreprocessingType type : PreprocessingType.values()) {
+      assertRelativeMaxError(duplicated.getXtX(type), weighted.getXtX(type), 1e-10);
+      assertRelativeMaxError(duplicated.getXty(type), weighted.getXty(type), 1e-10);
+    }
+  }
+
   @Override
   protected SIMPLS instantiateSubject() {
     return new SIMPLS();
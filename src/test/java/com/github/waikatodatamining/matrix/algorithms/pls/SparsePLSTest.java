@@ -1,6 +1,15 @@
 package com.github.waikatodatamining.matrix.algorithms.pls;
 
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.test.misc.TestRegression;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Testcase for the SparsePLS algorithm.
@@ -19,6 +28,70 @@ public class SparsePLSTest extends AbstractPLSTest<SparsePLS> {
     m_subject.setLambda(0.001);
   }
 
+  /**
+   * Ensures that the models of a lambda path (given in arbitrary order, but
+   * fitted from the sparsest one onwards) match separately fitted ones, and
+   * that the selected features only grow as lambda decreases.
+   */
+  @Test
+  public void lambdaPath() {
+    Matrix X = m_inputData[0];
+    Matrix Y = m_inputData[1];
+    double[] lambdas = {0.1, 0.7, 0.0, 0.3, 0.9};
+    // indices of the lambdas in decreasing order
+    int[] decreasing = {4, 1, 3, 0, 2};
+
+    m_subject.setNumComponents(3);
+    List<SparsePLS> path = m_subject.configurePath(lambdas, X, Y);
+    Assertions.assertEquals(lambdas.length, path.size());
+    for (int i = 0; i < lambdas.length; i++) {
+      SparsePLS single = new SparsePLS();
+      single.setNumComponents(3);
+      single.setLambda(lambdas[i]);
+      single.configure(X, Y);
+      Assertions.assertEquals(lambdas[i], path.get(i).getLambda());
+      Assertions.assertArrayEquals(single.getSelectedFeatures(), path.get(i).getSelectedFeatures());
+      Assertions.assertEquals(single.getMatrix("B"), path.get(i).getMatrix("B"));
+      Assertions.assertEquals(single.predict(X), path.get(i).predict(X));
+    }
+
+    Set<Integer> previous = new HashSet<>();
+    for (int i : decreasing) {
+      Set<Integer> selected = Arrays.stream(path.get(i).getSelectedFeatures()).boxed().collect(Collectors.toSet());
+      Assertions.assertTrue(selected.containsAll(previous), "lambda=" + lambdas[i] + ": " + selected + " does not contain " + previous);
+      previous = selected;
+    }
+    Assertions.assertEquals(X.numColumns(), previous.size());
+  }
+
+  /**
+   * Ensures that a lambda path can be fitted with an already configured
+   * model without altering its selected features and coefficients, and that
+   * the path models use its number of components.
+   */
+  @Test
+  public void lambdaPathAfterConfigure() {
+    Matrix X = m_inputData[0];
+    Matrix Y = m_inputData[1];
+    double[] lambdas = {0.2, 0.6};
+
+    m_subject.setLambda(0.4);
+    m_subject.configure(X, Y);
+    int[] expectedFeatures = m_subject.getSelectedFeatures();
+    Matrix expectedB = m_subject.getMatrix("B");
+    List<SparsePLS> path = m_subject.configurePath(lambdas, X, Y);
+    Assertions.assertEquals(0.4, m_subject.getLambda());
+    Assertions.assertArrayEquals(expectedFeatures, m_subject.getSelectedFeatures());
+    Assertions.assertEquals(expectedB, m_subject.getMatrix("B"));
+    for (int i = 0; i < lambdas.length; i++) {
+      SparsePLS single = new SparsePLS();
+      single.setNumComponents(m_subject.getNumComponents());
+      single.setLambda(lambdas[i]);
+      single.configure(X, Y);
+      Assertions.assertEquals(m_subject.getNumComponents(), path.get(i).getNumComponents());
+      Assertions.assertArrayEquals(single.getSelectedFeatures(), path.get(i).getSelectedFeatures());
+    }
+  }
 
   @Override
   protected SparsePLS instantiateSubject() {
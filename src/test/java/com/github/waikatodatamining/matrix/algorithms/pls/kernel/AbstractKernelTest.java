@@ -3,6 +3,9 @@ package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
 import com.github.waikatodatamining.matrix.core.matrix.Matrix;
 import com.github.waikatodatamining.matrix.test.AbstractRegressionTest;
 import com.github.waikatodatamining.matrix.test.misc.TestDataset;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * Abstract kernel test. Regression for matrix transformation.
@@ -18,6 +21,64 @@ public abstract class AbstractKernelTest<T extends AbstractKernel> extends Abstr
     addRegression("kernel-matrix-result", matrixResult);
   }
 
+  /**
+   * Ensures that the (blocked) kernel matrix computation agrees with the
+   * kernel applied to each pair of rows.
+   */
+  @Test
+  public void applyMatrixMatchesApplyVector() {
+    Matrix X = m_inputData[0].getRows(0, 25);
+    Matrix Y = m_inputData[0].getRows(10, 40);
+    checkMatchesApplyVector(X, Y, m_subject.applyMatrix(X, Y));
+    checkMatchesApplyVector(X, X, m_subject.applyMatrix(X));
+  }
+
+  /**
+   * Ensures that kernel matrices computed from cached Gram/distance matrices
+   * agree with the uncached ones and that modifying them leaves the cache
+   * intact.
+   */
+  @Test
+  public void applyMatrixWithCache() {
+    Matrix X = m_inputData[0];
+    Matrix expected = m_subject.applyMatrix(X);
+    KernelCache cache = new KernelCache();
+    m_subject.setCache(cache);
+    try {
+      for (int n = 0; n < 2; n++) {
+	Matrix K = m_subject.applyMatrix(X.copy());
+	assertEquals(0.0, K.sub(expected).abs().max(), 1e-12);
+	K.set(0, 0, Double.NaN);
+      }
+    }
+    finally {
+      m_subject.setCache(null);
+    }
+    if (cache.getNumEntries() > 0) {
+      assertEquals(1, cache.getMisses());
+      assertEquals(1, cache.getHits());
+    }
+  }
+
+  /**
+   * Compares each entry of the kernel matrix with the kernel applied to the
+   * corresponding rows.
+   *
+   * @param X First matrix
+   * @param Y Second matrix
+   * @param K Kernel matrix to check
+   */
+  protected void checkMatchesApplyVector(Matrix X, Matrix Y, Matrix K) {
+    assertEquals(X.numRows(), K.numRows());
+    assertEquals(Y.numRows(), K.numColumns());
+    for (int i = 0; i < X.numRows(); i++) {
+      for (int j = 0; j < Y.numRows(); j++) {
+	double expected = m_subject.applyVector(X.getRow(i), Y.getRow(j));
+	assertEquals(expected, K.get(i, j), 1e-8 * Math.max(1.0, Math.abs(expected)));
+      }
+    }
+  }
+
   @Override
   protected TestDataset[] getDatasets() {
     return new TestDataset[]{
@@ -0,0 +1,91 @@
+package com.github.waikatodatamining.matrix.algorithms.pls.kernel;
+
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.core.matrix.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests the kernel cache.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class KernelCacheTest {
+
+  @Test
+  public void keyedByValues() {
+    KernelCache cache = new KernelCache();
+    Matrix X = MatrixFactory.randn(20, 5, 1);
+    Matrix gram = cache.getGram(X, X);
+    assertSame(gram, cache.getGram(X.copy(), X.copy()));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    // different type or different values are misses
+    cache.getDistances(X, X);
+    Matrix Y = X.copy();
+    Y.set(0, 0, Y.get(0, 0) + 1.0);
+    cache.getGram(Y, Y);
+    assertEquals(3, cache.getMisses());
+    assertEquals(3, cache.getNumEntries());
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    Matrix X1 = MatrixFactory.randn(10, 2, 1);
+    Matrix X2 = MatrixFactory.randn(10, 2, 2);
+    Matrix X3 = MatrixFactory.randn(10, 2, 3);
+    // Gram (10x10) plus data (10x2) per entry, room for two entries
+    long entrySize = (10 * 10 + 10 * 2) * Double.BYTES;
+    KernelCache cache = new KernelCache(2 * entrySize);
+
+    cache.getGram(X1, X1);
+    cache.getGram(X2, X2);
+    cache.getGram(X1, X1);
+    cache.getGram(X3, X3);
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2 * entrySize, cache.getSize());
+
+    // X2 was the least recently used one
+    cache.getGram(X1, X1);
+    assertEquals(2, cache.getHits());
+    cache.getGram(X2, X2);
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void modifyingDataAfterCaching() {
+    KernelCache cache = new KernelCache();
+    Matrix X = MatrixFactory.randn(20, 5, 1);
+    Matrix gram = cache.getGram(X, X);
+
+    // the key holds a snapshot, the modified data must not hit the old entry
+    X.set(0, 0, X.get(0, 0) + 1.0);
+    Matrix modified = cache.getGram(X, X);
+    assertEquals(2, cache.getMisses());
+    assertNotEquals(gram.get(0, 0), modified.get(0, 0));
+    assertEquals(X.mult(X), modified);
+  }
+
+  @Test
+  public void concurrentRequests() {
+    KernelCache cache = new KernelCache();
+    Matrix X = MatrixFactory.randn(200, 50, 1);
+    List<Matrix> results = IntStream.range(0, 16).parallel()
+      .mapToObj(i -> cache.getDistances(X.copy(), X.copy()))
+      .collect(Collectors.toList());
+
+    // all requests share the one computed matrix
+    assertEquals(1, cache.getMisses());
+    assertEquals(15, cache.getHits());
+    for (Matrix result : results)
+      assertSame(results.get(0), result);
+  }
+}
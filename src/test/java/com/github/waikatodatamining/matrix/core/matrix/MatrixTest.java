@@ -4,11 +4,13 @@ import Jama.EigenvalueDecomposition;
 import Jama.SingularValueDecomposition;
 import com.github.waikatodatamining.matrix.core.Utils;
 import com.github.waikatodatamining.matrix.core.exceptions.InvalidShapeException;
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixInversionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.ojalgo.matrix.decomposition.SingularValue;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 /**
@@ -135,6 +137,18 @@ public class MatrixTest {
     assertMatrixEquals(ja.getMatrix(rows, cols), a.getSubMatrix(rows, cols));
   }
 
+  @Test
+  public void getColumnsView() {
+    int[] rows = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+    int[] cols = {2, 5, 7};
+    Matrix view = a.getColumns(cols);
+    assertMatrixEquals(ja.getMatrix(rows, cols), view);
+
+    // modifying the view must not modify the original matrix
+    view.set(0, 0, 42.0);
+    assertMatrixEquals(ja, a);
+  }
+
   @Test
   public void getEigenvectors() {
     Matrix aa = a.mul(a.transpose());
@@ -177,6 +191,97 @@ public class MatrixTest {
     assertMatrixEquals(ja.times(ja.transpose()), a.mul(a.transpose()));
   }
 
+  @Test
+  public void tmul() {
+    assertMatrixEquals(ja.transpose().times(jb), a.tmul(b));
+    // logical views get copied once
+    int[] rows = {1, 3, 5};
+    assertEquals(a.getRows(rows).t().mul(b.getRows(rows)), a.getRows(rows).tmul(b.getRows(rows)));
+    assertThrows(InvalidShapeException.class, () -> a.tmul(b.t()));
+  }
+
+  @Test
+  public void mult() {
+    assertMatrixEquals(ja.times(jb.transpose()), a.mult(b));
+    assertEquals(a.t().mul(b), a.t().mult(b.t()));
+    assertThrows(InvalidShapeException.class, () -> a.mult(b.t()));
+    // NaN propagates as with mul, even when multiplied by zero
+    Matrix nan = MatrixFactory.fromRaw(new double[][]{{Double.NaN, 1.0}});
+    Matrix zero = MatrixFactory.fromRaw(new double[][]{{0.0, 1.0}});
+    assertEquals(nan.mul(zero.t()).asDouble(), nan.mult(zero).asDouble());
+  }
+
+  @Test
+  public void gram() {
+    Matrix gram = a.gram();
+    assertMatrixEquals(ja.transpose().times(ja), gram);
+    for (int i = 0; i < gram.numRows(); i++) {
+      for (int j = 0; j < i; j++) {
+	assertEquals(gram.get(j, i), gram.get(i, j), 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void scaleAndAddByVector() {
+    Matrix rowScale = MatrixFactory.randn(a.numColumns(), 1, 1);
+    Matrix colScale = MatrixFactory.randn(a.numRows(), 1, 2);
+    Jama.Matrix jRowScale = new Jama.Matrix(a.numColumns(), a.numColumns());
+    Jama.Matrix jColScale = new Jama.Matrix(a.numRows(), a.numRows());
+    Jama.Matrix jAdd = new Jama.Matrix(a.numRows(), a.numColumns());
+    for (int j = 0; j < a.numColumns(); j++) {
+      jRowScale.set(j, j, rowScale.get(j, 0));
+      for (int i = 0; i < a.numRows(); i++)
+	jAdd.set(i, j, rowScale.get(j, 0));
+    }
+    for (int i = 0; i < a.numRows(); i++)
+      jColScale.set(i, i, colScale.get(i, 0));
+
+    assertMatrixEquals(ja.times(jRowScale), a.scaleByRowVector(rowScale));
+    assertMatrixEquals(jColScale.times(ja), a.scaleByColumnVector(colScale));
+    assertMatrixEquals(ja.plus(jAdd), a.addByVector(rowScale));
+    // logical views get copied once
+    int[] rows = {1, 3, 5};
+    assertEquals(a.getRows(rows).copy().scaleByRowVector(rowScale), a.getRows(rows).scaleByRowVector(rowScale));
+    assertThrows(InvalidShapeException.class, () -> a.scaleByColumnVector(rowScale));
+  }
+
+  @Test
+  public void solve() {
+    Matrix square = a.mult(b);
+    Matrix rhs = MatrixFactory.randn(10, 2, 3);
+    Jama.Matrix jrhs = new Jama.Matrix(rhs.toRawCopy2D());
+    assertMatrixEquals(ja.times(jb.transpose()).solve(jrhs), square.solve(rhs));
+    assertThrows(InvalidShapeException.class, () -> a.solve(b));
+    assertThrows(MatrixInversionException.class, () -> MatrixFactory.zeros(10, 10).solve(rhs));
+
+    // symmetric positive definite
+    Matrix spd = a.mult(a).add(MatrixFactory.eye(10));
+    assertMatrixEquals(ja.times(ja.transpose()).plus(Jama.Matrix.identity(10, 10)).solve(jrhs), spd.solveSymmetricPositiveDefinite(rhs));
+    // not positive definite: falls back to least squares
+    Matrix indefinite = spd.sub(MatrixFactory.eye(10).mul(1e6));
+    assertEquals(indefinite.lstsq(rhs), indefinite.solveSymmetricPositiveDefinite(rhs));
+
+    // diagonal
+    Matrix diagonal = MatrixFactory.diag(MatrixFactory.fromColumn(new double[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+    assertEquals(diagonal.inverse().mul(rhs), diagonal.solveDiagonal(rhs));
+    assertThrows(MatrixInversionException.class, () -> MatrixFactory.zeros(10, 10).solveDiagonal(rhs));
+  }
+
+  @Test
+  public void lstsq() {
+    // full rank: QR
+    Matrix tall = a.t();
+    Matrix rhs = MatrixFactory.randn(20, 2, 3);
+    assertMatrixEquals(ja.transpose().solve(new Jama.Matrix(rhs.toRawCopy2D())), tall.lstsq(rhs));
+
+    // rank deficient and underdetermined: minimum-norm solution
+    Matrix deficient = tall.concat(tall.getColumn(0), 1);
+    assertEquals(deficient.pseudoInverse().mul(rhs), deficient.lstsq(rhs));
+    assertEquals(a.pseudoInverse().mul(b.getColumn(0)), a.lstsq(b.getColumn(0)));
+    assertThrows(InvalidShapeException.class, () -> a.lstsq(rhs));
+  }
+
   @Test
   public void vectorDot() {
     Jama.Matrix subJA = ja.getMatrix(0, ja.getRowDimension() - 1, 0, 0).transpose();
@@ -407,4 +512,18 @@ public class MatrixTest {
 
     assertMatrixEquals(dominantEigenVectorJama, dominantEigenVector);
   }
+
+  @Test
+  public void serialization() {
+    Matrix mat = MatrixFactory.range(3, 4, 0).gram();
+    mat.getDominantEigenvector();
+    Matrix copy = Utils.deepCopy(mat);
+
+    assertEquals(mat, copy);
+    assertEquals(mat.getDominantEigenvector(), copy.getDominantEigenvector());
+
+    Matrix empty = Utils.deepCopy(MatrixFactory.zeros(0, 3));
+    assertEquals(0, empty.numRows());
+    assertEquals(3, empty.numColumns());
+  }
 }
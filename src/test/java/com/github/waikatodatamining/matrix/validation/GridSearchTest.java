@@ -0,0 +1,110 @@
+package com.github.waikatodatamining.matrix.validation;
+
+import com.github.waikatodatamining.matrix.algorithms.pls.PLSCrossValidation;
+import com.github.waikatodatamining.matrix.algorithms.pls.PreprocessingType;
+import com.github.waikatodatamining.matrix.algorithms.pls.SIMPLS;
+import com.github.waikatodatamining.matrix.core.StoppedException;
+import com.github.waikatodatamining.matrix.core.Utils;
+import com.github.waikatodatamining.matrix.core.matrix.Matrix;
+import com.github.waikatodatamining.matrix.test.misc.TestDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testcase for the GridSearch.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GridSearchTest {
+
+  /** the predictors. */
+  protected Matrix m_X;
+
+  /** the response. */
+  protected Matrix m_y;
+
+  @BeforeEach
+  public void setUp() {
+    m_X = TestDataset.BOLTS.load();
+    m_y = TestDataset.BOLTS_RESPONSE.load();
+  }
+
+  /**
+   * Ensures that all (split x setting) jobs get evaluated and that the
+   * results agree with the component cross-validation on the same folds.
+   */
+  @Test
+  public void numComponents() {
+    KFoldSplitter splitter = new KFoldSplitter();
+    splitter.setNumFolds(5);
+    GridSearch<SIMPLS> search = new GridSearch<>(new SIMPLS());
+    search.setSplitter(splitter);
+    search.setNumThreads(2);
+    search.addParameter("numComponents", Arrays.asList(1, 2, 3, 4), SIMPLS::setNumComponents);
+    search.addParameter("preprocessingType", Arrays.asList(PreprocessingType.CENTER, PreprocessingType.STANDARDIZE), SIMPLS::setPreprocessingType);
+    assertEquals(8, search.getNumSettings());
+    assertEquals("numComponents=2, preprocessingType=STANDARDIZE", search.getSettingDescription(3));
+
+    List<JobResult> results = search.evaluate(m_X, m_y);
+    assertEquals(5 * 8, results.size());
+    for (JobResult result : results) {
+      assertTrue(result.getTrainTime() > 0);
+      assertTrue(result.getRMSE() > 0);
+    }
+    int best = search.getBestSetting();
+    for (double rmse : search.getRMSE())
+      assertTrue(search.getRMSE()[best] <= rmse);
+
+    SIMPLS template = new SIMPLS();
+    template.setPreprocessingType(PreprocessingType.CENTER);
+    PLSCrossValidation cv = new PLSCrossValidation();
+    cv.setTemplate(template);
+    cv.setMaxComponents(4);
+    cv.setNumFolds(5);
+    double[] rmsecv = cv.crossValidate(m_X, m_y);
+    for (int k = 1; k <= 4; k++)
+      assertEquals(rmsecv[k - 1], search.getRMSE()[(k - 1) * 2], 1e-8);
+  }
+
+  /**
+   * Ensures that a copied search keeps its parameters and that an already
+   * configured template can be used.
+   */
+  @Test
+  public void copy() {
+    SIMPLS template = new SIMPLS();
+    template.configure(m_X, m_y);
+    GridSearch<SIMPLS> search = new GridSearch<>(template);
+    search.addParameter("numComponents", Arrays.asList(1, 2), SIMPLS::setNumComponents);
+    GridSearch<SIMPLS> copy = Utils.deepCopy(search);
+    assertEquals(2, copy.getNumSettings());
+    assertEquals(2, copy.createAlgorithm(1).getNumComponents());
+
+    List<JobResult> results = copy.evaluate(m_X, m_y);
+    assertEquals(copy.getSplitter().split(m_X.numRows()).size() * 2, results.size());
+    assertTrue(template.isConfigured());
+  }
+
+  /**
+   * Ensures that stopping the search cancels the remaining jobs.
+   */
+  @Test
+  public void stop() {
+    GridSearch<SIMPLS> search = new GridSearch<>(new SIMPLS());
+    search.setNumThreads(1);
+    // stops the search as soon as the first job sets up its algorithm
+    search.addParameter("numComponents", Arrays.asList(1, 2, 3), (SIMPLS algorithm, Integer value) -> {
+      algorithm.setNumComponents(value);
+      search.stop();
+    });
+    assertThrows(StoppedException.class, () -> search.evaluate(m_X, m_y));
+    assertTrue(search.isStopped());
+  }
+}
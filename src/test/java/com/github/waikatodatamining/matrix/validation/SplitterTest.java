@@ -0,0 +1,96 @@
+package com.github.waikatodatamining.matrix.validation;
+
+import com.github.waikatodatamining.matrix.core.exceptions.MatrixAlgorithmsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the splitters.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SplitterTest {
+
+  /**
+   * Checks that the test rows of the splits partition the rows and that the
+   * training rows are the complement.
+   *
+   * @param splits	the splits to check
+   * @param numRows	the number of rows
+   */
+  protected void assertPartition(List<Split> splits, int numRows) {
+    int[] counts = new int[numRows];
+    for (Split split : splits) {
+      assertEquals(numRows, split.getTrainRows().length + split.getTestRows().length);
+      Set<Integer> test = new HashSet<>();
+      for (int row : split.getTestRows()) {
+	test.add(row);
+	counts[row]++;
+      }
+      for (int row : split.getTrainRows())
+	assertFalse(test.contains(row));
+    }
+    for (int count : counts)
+      assertEquals(1, count);
+  }
+
+  @Test
+  public void kFold() {
+    KFoldSplitter splitter = new KFoldSplitter();
+    splitter.setNumFolds(7);
+    List<Split> splits = splitter.split(40);
+    assertEquals(7, splits.size());
+    assertPartition(splits, 40);
+    for (Split split : splits)
+      assertTrue(Math.abs(split.getTestRows().length - 40 / 7.0) < 1.0);
+
+    // more folds than rows -> leave-one-out
+    assertEquals(5, splitter.split(5).size());
+  }
+
+  @Test
+  public void repeatedKFold() {
+    RepeatedKFoldSplitter splitter = new RepeatedKFoldSplitter();
+    splitter.setNumFolds(5);
+    splitter.setNumRepetitions(3);
+    List<Split> splits = splitter.split(40);
+    assertEquals(15, splits.size());
+    for (int run = 0; run < 3; run++) {
+      assertPartition(splits.subList(run * 5, (run + 1) * 5), 40);
+      for (int fold = 0; fold < 5; fold++)
+	assertEquals(run * 5 + fold, splits.get(run * 5 + fold).getIndex());
+    }
+  }
+
+  @Test
+  public void groupKFold() {
+    int[] groups = new int[40];
+    for (int i = 0; i < groups.length; i++)
+      groups[i] = i / 4;
+    GroupKFoldSplitter splitter = new GroupKFoldSplitter();
+    splitter.setNumFolds(5);
+    splitter.setGroups(groups);
+    List<Split> splits = splitter.split(40);
+    assertEquals(5, splits.size());
+    assertPartition(splits, 40);
+    for (Split split : splits) {
+      assertEquals(8, split.getTestRows().length);
+      Set<Integer> testGroups = new HashSet<>();
+      for (int row : split.getTestRows())
+	testGroups.add(groups[row]);
+      for (int row : split.getTrainRows())
+	assertFalse(testGroups.contains(groups[row]));
+    }
+
+    splitter.setGroups(new int[10]);
+    assertThrows(MatrixAlgorithmsException.class, () -> splitter.split(40));
+  }
+}